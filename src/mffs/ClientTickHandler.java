@@ -0,0 +1,43 @@
+package mffs;
+
+import java.util.EnumSet;
+
+import mffs.fortron.FrequencyGrid;
+import cpw.mods.fml.client.FMLClientHandler;
+import cpw.mods.fml.common.ITickHandler;
+import cpw.mods.fml.common.TickType;
+
+/**
+ * Ticks the client side Fortron networks, which predict transfers and draw the beams.
+ *
+ * @author Calclavia
+ *
+ */
+public class ClientTickHandler implements ITickHandler
+{
+	@Override
+	public void tickStart(EnumSet<TickType> type, Object... tickData)
+	{
+	}
+
+	@Override
+	public void tickEnd(EnumSet<TickType> type, Object... tickData)
+	{
+		if (FMLClientHandler.instance().getClient().theWorld != null)
+		{
+			FrequencyGrid.instance().updateNetworks();
+		}
+	}
+
+	@Override
+	public EnumSet<TickType> ticks()
+	{
+		return EnumSet.of(TickType.CLIENT);
+	}
+
+	@Override
+	public String getLabel()
+	{
+		return ModularForceFieldSystem.NAME + " Client Ticker";
+	}
+}
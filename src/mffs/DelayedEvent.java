@@ -11,6 +11,13 @@ public abstract class DelayedEvent
 
 	protected abstract void onEvent();
 
+	/**
+	 * Called instead of onEvent if the server stops before the event runs out of ticks.
+	 */
+	protected void onCancel()
+	{
+	}
+
 	public void update()
 	{
 		this.ticks--;
@@ -1,19 +1,20 @@
 package mffs;
 
-import icbm.api.IBlockFrequency;
-
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
 
 import mffs.api.IProjector;
 import mffs.api.fortron.IFortronFrequency;
 import mffs.api.modules.IModuleAcceptor;
+import mffs.api.modules.ModuleSlotGroup;
 import mffs.api.security.IInterdictionMatrix;
 import mffs.api.security.Permission;
-import mffs.fortron.FrequencyGrid;
+import mffs.base.RotationTransform;
+import mffs.fortron.FortronBalancer;
+import mffs.item.module.projector.FieldTemplate;
 import mffs.item.module.projector.ItemModeCustom;
+import mffs.tileentity.FieldBoundsIndex;
 import net.minecraft.block.Block;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemBlock;
@@ -24,7 +25,6 @@ import net.minecraft.world.World;
 import net.minecraftforge.common.ForgeDirection;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent.Action;
 import universalelectricity.core.vector.Vector3;
-import calclavia.lib.CalculationHelper;
 
 /**
  * A class containing some general helpful functions.
@@ -34,109 +34,14 @@ import calclavia.lib.CalculationHelper;
  */
 public class MFFSHelper
 {
+	/**
+	 * Spreads Fortron between the transferer and the machines based on the transfer mode.
+	 * 
+	 * @see FortronBalancer
+	 */
 	public static void transferFortron(IFortronFrequency transferer, Set<IFortronFrequency> frequencyTiles, TransferMode transferMode, int limit)
 	{
-		if (transferer != null && frequencyTiles.size() > 1)
-		{
-			/**
-			 * Check spread mode. Equal, Give All, Take All
-			 */
-			int totalFortron = 0;
-			int totalCapacity = 0;
-
-			for (IFortronFrequency machine : frequencyTiles)
-			{
-				if (machine != null)
-				{
-					totalFortron += machine.getFortronEnergy();
-					totalCapacity += machine.getFortronCapacity();
-				}
-			}
-
-			if (totalFortron > 0 && totalCapacity > 0)
-			{
-				/**
-				 * Test each mode and based on the mode, spread Fortron energy.
-				 */
-				switch (transferMode)
-				{
-					case EQUALIZE:
-					{
-						for (IFortronFrequency machine : frequencyTiles)
-						{
-							if (machine != null)
-							{
-								double capacityPercentage = (double) machine.getFortronCapacity() / (double) totalCapacity;
-								int amountToSet = (int) (totalFortron * capacityPercentage);
-								doTransferFortron(transferer, machine, amountToSet - machine.getFortronEnergy(), limit);
-							}
-						}
-
-						break;
-					}
-					case DISTRIBUTE:
-					{
-						final int amountToSet = totalFortron / frequencyTiles.size();
-
-						for (IFortronFrequency machine : frequencyTiles)
-						{
-							if (machine != null)
-							{
-								doTransferFortron(transferer, machine, amountToSet - machine.getFortronEnergy(), limit);
-							}
-						}
-
-						break;
-					}
-					case DRAIN:
-					{
-						frequencyTiles.remove(transferer);
-
-						for (IFortronFrequency machine : frequencyTiles)
-						{
-							if (machine != null)
-							{
-								double capacityPercentage = (double) machine.getFortronCapacity() / (double) totalCapacity;
-								int amountToSet = (int) (totalFortron * capacityPercentage);
-
-								if (amountToSet - machine.getFortronEnergy() > 0)
-								{
-									doTransferFortron(transferer, machine, amountToSet - machine.getFortronEnergy(), limit);
-								}
-							}
-						}
-
-						break;
-					}
-					case FILL:
-					{
-						if (transferer.getFortronEnergy() < transferer.getFortronCapacity())
-						{
-							frequencyTiles.remove(transferer);
-
-							// The amount of energy required to be full.
-							int requiredFortron = transferer.getFortronCapacity() - transferer.getFortronEnergy();
-
-							for (IFortronFrequency machine : frequencyTiles)
-							{
-								if (machine != null)
-								{
-									int amountToConsume = Math.min(requiredFortron, machine.getFortronEnergy());
-									int amountToSet = -machine.getFortronEnergy() - amountToConsume;
-
-									if (amountToConsume > 0)
-									{
-										doTransferFortron(transferer, machine, amountToSet - machine.getFortronEnergy(), limit);
-									}
-								}
-							}
-						}
-
-						break;
-					}
-				}
-			}
-		}
+		FortronBalancer.transferFortron(transferer, frequencyTiles, transferMode, limit);
 	}
 
 	/**
@@ -196,23 +101,24 @@ public class MFFSHelper
 	 */
 	public static IInterdictionMatrix getNearestInterdictionMatrix(World world, Vector3 position)
 	{
-		for (IBlockFrequency frequencyTile : FrequencyGrid.instance().get())
+		IInterdictionMatrix nearest = null;
+		double nearestDistance = Double.MAX_VALUE;
+
+		for (IInterdictionMatrix interdictionMatrix : FieldBoundsIndex.get(world).getInterdictionMatrices(position.x, position.z))
 		{
-			if (((TileEntity) frequencyTile).worldObj == world && frequencyTile instanceof IInterdictionMatrix)
+			if (interdictionMatrix.isActive())
 			{
-				IInterdictionMatrix interdictionMatrix = (IInterdictionMatrix) frequencyTile;
+				double distance = position.distanceTo(new Vector3((TileEntity) interdictionMatrix));
 
-				if (interdictionMatrix.isActive())
+				if (distance <= interdictionMatrix.getActionRange() && distance < nearestDistance)
 				{
-					if (position.distanceTo(new Vector3((TileEntity) interdictionMatrix)) <= interdictionMatrix.getActionRange())
-					{
-						return interdictionMatrix;
-					}
+					nearest = interdictionMatrix;
+					nearestDistance = distance;
 				}
 			}
 		}
 
-		return null;
+		return nearest;
 	}
 
 	public static boolean isPermittedByInterdictionMatrix(IInterdictionMatrix interdictionMatrix, String username, Permission... permissions)
@@ -272,9 +178,11 @@ public class MFFSHelper
 	{
 		if (tileEntity instanceof IProjector)
 		{
-			for (int i : ((IProjector) tileEntity).getModuleSlots())
+			ModuleSlotGroup moduleSlots = ((IProjector) tileEntity).getModuleSlotGroup();
+
+			for (int i = 0; i < moduleSlots.size(); i++)
 			{
-				ItemStack checkStack = getFirstItemBlock(i, ((IProjector) tileEntity), itemStack);
+				ItemStack checkStack = getFirstItemBlock(moduleSlots.getSlot(i), ((IProjector) tileEntity), itemStack);
 
 				if (checkStack != null)
 				{
@@ -365,25 +273,24 @@ public class MFFSHelper
 			{
 				if (projector.getMode() instanceof ItemModeCustom)
 				{
-					HashMap<Vector3, int[]> fieldMap = ((ItemModeCustom) projector.getMode()).getFieldBlockMap(projector.getModeStack());
-
-					if (fieldMap != null)
+					FieldTemplate template = ((ItemModeCustom) projector.getMode()).getFieldTemplate(projector.getModeStack());
+					Vector3 fieldCenter = new Vector3((TileEntity) projector).add(projector.getTranslation());
+					Vector3 relativePosition = position.clone().subtract(fieldCenter);
+					RotationTransform.get(projector).inverseTransform(relativePosition);
+					relativePosition = relativePosition.round();
+					int index = template.indexOf(relativePosition.intX(), relativePosition.intY(), relativePosition.intZ());
+
+					if (index >= 0 && template.getBlockID(index) > 0)
 					{
-						Vector3 fieldCenter = new Vector3((TileEntity) projector).add(projector.getTranslation());
-						Vector3 relativePosition = position.clone().subtract(fieldCenter);
-						CalculationHelper.rotateByAngle(relativePosition, -projector.getRotationYaw(), -projector.getRotationPitch());
-						int[] blockInfo = fieldMap.get(relativePosition.round());
-
-						if (blockInfo != null && blockInfo[0] > 0)
-						{
-							return new ItemStack(Block.blocksList[blockInfo[0]], 1, blockInfo[1]);
-						}
+						return new ItemStack(Block.blocksList[template.getBlockID(index)], 1, template.getBlockMetadata(index));
 					}
 				}
 
-				for (int i : projector.getModuleSlots())
+				ModuleSlotGroup moduleSlots = projector.getModuleSlotGroup();
+
+				for (int i = 0; i < moduleSlots.size(); i++)
 				{
-					ItemStack checkStack = projector.getStackInSlot(i);
+					ItemStack checkStack = projector.getStackInSlot(moduleSlots.getSlot(i));
 					Block block = getCamoBlock(checkStack);
 
 					if (block != null)
@@ -31,6 +31,7 @@ import mffs.item.module.interdiction.ItemModuleAntiPersonnel;
 import mffs.item.module.interdiction.ItemModuleConfiscate;
 import mffs.item.module.interdiction.ItemModuleInterdictionMatrix;
 import mffs.item.module.interdiction.ItemModuleWarn;
+import mffs.item.module.projector.FieldTemplateStore;
 import mffs.item.module.projector.ItemModeCustom;
 import mffs.item.module.projector.ItemModeCylinder;
 import mffs.item.module.projector.ItemModePyramid;
@@ -40,6 +41,9 @@ import mffs.item.module.projector.ItemModuleManipulator;
 import mffs.item.module.projector.ItemModuleShock;
 import mffs.item.module.projector.ItemModuleSponge;
 import mffs.item.module.projector.ItemModuleStablize;
+import mffs.tileentity.FieldBoundsIndex;
+import mffs.tileentity.FieldChangeListener;
+import mffs.tileentity.ProjectorCalculationService;
 import mffs.tileentity.TileEntityBiometricIdentifier;
 import mffs.tileentity.TileEntityCoercionDeriver;
 import mffs.tileentity.TileEntityForceField;
@@ -72,15 +76,19 @@ import cpw.mods.fml.common.Mod.Instance;
 import cpw.mods.fml.common.Mod.PostInit;
 import cpw.mods.fml.common.Mod.PreInit;
 import cpw.mods.fml.common.Mod.ServerStarting;
+import cpw.mods.fml.common.Mod.ServerStopping;
 import cpw.mods.fml.common.ModMetadata;
 import cpw.mods.fml.common.SidedProxy;
 import cpw.mods.fml.common.event.FMLInitializationEvent;
 import cpw.mods.fml.common.event.FMLPostInitializationEvent;
 import cpw.mods.fml.common.event.FMLPreInitializationEvent;
 import cpw.mods.fml.common.event.FMLServerStartingEvent;
+import cpw.mods.fml.common.event.FMLServerStoppingEvent;
 import cpw.mods.fml.common.network.NetworkMod;
 import cpw.mods.fml.common.network.NetworkRegistry;
 import cpw.mods.fml.common.registry.GameRegistry;
+import cpw.mods.fml.common.registry.TickRegistry;
+import cpw.mods.fml.relauncher.Side;
 
 @Mod(modid = ModularForceFieldSystem.ID, name = ModularForceFieldSystem.NAME, version = ModularForceFieldSystem.VERSION, useMetadata = true)
 @NetworkMod(clientSideRequired = true, channels = { ModularForceFieldSystem.CHANNEL }, packetHandler = PacketManager.class)
@@ -178,6 +186,7 @@ public class ModularForceFieldSystem
 		Modstats.instance().getReporter().registerMod(this);
 		NetworkRegistry.instance().registerGuiHandler(this, proxy);
 		MinecraftForge.EVENT_BUS.register(new SubscribeEventHandler());
+		TickRegistry.registerTickHandler(new ServerTickHandler(), Side.SERVER);
 
 		Settings.load();
 
@@ -413,5 +422,28 @@ public class ModularForceFieldSystem
 	public void serverStarting(FMLServerStartingEvent evt)
 	{
 		FrequencyGrid.reinitiate();
+		ProjectorCalculationService.reinitiate();
+		FieldChangeListener.clear();
+		FieldBoundsIndex.clear();
+
+		/**
+		 * Mode IDs are only unique within a save, so fields of another save must not be reused.
+		 */
+		((ItemModeCustom) itemModeCustom).clearCache();
+	}
+
+	@ServerStopping
+	public void serverStopping(FMLServerStoppingEvent evt)
+	{
+		/**
+		 * Custom modes already captured are written before the server goes away, and so are the
+		 * index saves they queue. Captures still reading the world are cancelled.
+		 */
+		if (!FieldTemplateStore.flush())
+		{
+			LOGGER.warning("Custom mode writes did not finish before the server stopped.");
+		}
+
+		ServerTickHandler.cancelAll();
 	}
 }
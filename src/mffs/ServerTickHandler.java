@@ -0,0 +1,145 @@
+package mffs;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+
+import mffs.base.KeyedCache;
+import mffs.fortron.FrequencyGrid;
+import mffs.item.module.projector.FieldTemplate;
+import mffs.item.module.projector.ItemModeCustom;
+import cpw.mods.fml.common.ITickHandler;
+import cpw.mods.fml.common.TickType;
+
+/**
+ * Runs periodic server side maintenance for MFFS.
+ *
+ * @author Calclavia
+ *
+ */
+public class ServerTickHandler implements ITickHandler
+{
+	/**
+	 * How often the frequency grid is audited for stale entries, in ticks.
+	 */
+	private static final int GRID_AUDIT_INTERVAL = 20 * 60 * 5;
+
+	/**
+	 * How often statistics are logged at the fine level, in ticks.
+	 */
+	private static final int STATISTICS_INTERVAL = 20 * 60 * 5;
+
+	/**
+	 * Events waiting to be run on the server thread. Other threads may add to it.
+	 */
+	private static final Queue<DelayedEvent> QUEUED_EVENTS = new ConcurrentLinkedQueue<DelayedEvent>();
+
+	/**
+	 * Events being updated. Only used on the server thread.
+	 */
+	private static final List<DelayedEvent> DELAYED_EVENTS = new ArrayList<DelayedEvent>();
+
+	private long ticks = 0;
+
+	/**
+	 * Schedules an event to be updated on the server thread every tick until it runs out of
+	 * ticks. Safe to call from any thread.
+	 */
+	public static void schedule(DelayedEvent event)
+	{
+		QUEUED_EVENTS.add(event);
+	}
+
+	/**
+	 * Cancels every event that has not run yet. Called when the server stops, as the worlds and
+	 * players the events use are going away.
+	 */
+	public static void cancelAll()
+	{
+		DelayedEvent queuedEvent;
+
+		while ((queuedEvent = QUEUED_EVENTS.poll()) != null)
+		{
+			DELAYED_EVENTS.add(queuedEvent);
+		}
+
+		for (DelayedEvent event : DELAYED_EVENTS)
+		{
+			event.onCancel();
+		}
+
+		DELAYED_EVENTS.clear();
+	}
+
+	@Override
+	public void tickStart(EnumSet<TickType> type, Object... tickData)
+	{
+	}
+
+	@Override
+	public void tickEnd(EnumSet<TickType> type, Object... tickData)
+	{
+		DelayedEvent queuedEvent;
+
+		while ((queuedEvent = QUEUED_EVENTS.poll()) != null)
+		{
+			DELAYED_EVENTS.add(queuedEvent);
+		}
+
+		Iterator<DelayedEvent> it = DELAYED_EVENTS.iterator();
+
+		while (it.hasNext())
+		{
+			DelayedEvent evt = it.next();
+			evt.update();
+
+			if (evt.ticks <= 0)
+			{
+				it.remove();
+			}
+		}
+
+		FrequencyGrid.instance().updateNetworks();
+
+		if (++this.ticks % GRID_AUDIT_INTERVAL == 0)
+		{
+			int staleEntries = FrequencyGrid.instance().cleanUp();
+
+			if (staleEntries > 0)
+			{
+				ModularForceFieldSystem.LOGGER.info("Frequency grid audit removed " + staleEntries + " stale entries.");
+			}
+			else
+			{
+				ModularForceFieldSystem.LOGGER.fine("Frequency grid audit found no stale entries.");
+			}
+		}
+
+		if (this.ticks % STATISTICS_INTERVAL == 0 && ModularForceFieldSystem.LOGGER.isLoggable(Level.FINE))
+		{
+			ModularForceFieldSystem.LOGGER.fine(SubscribeEventHandler.getSpawnStatistics());
+
+			if (ModularForceFieldSystem.itemModeCustom instanceof ItemModeCustom)
+			{
+				KeyedCache<Integer, FieldTemplate> cache = ((ItemModeCustom) ModularForceFieldSystem.itemModeCustom).getTemplateStore().getCache();
+				ModularForceFieldSystem.LOGGER.fine("Custom mode templates cached: " + cache.size() + ", memory: " + cache.getWeight() + "/" + cache.getMaxWeight() + " bytes, hits: " + cache.getHits() + ", misses: " + cache.getMisses() + ", evictions: " + cache.getEvictions());
+			}
+		}
+	}
+
+	@Override
+	public EnumSet<TickType> ticks()
+	{
+		return EnumSet.of(TickType.SERVER);
+	}
+
+	@Override
+	public String getLabel()
+	{
+		return ModularForceFieldSystem.NAME + " Server Ticker";
+	}
+}
@@ -49,6 +49,9 @@ public class Settings
 	public static boolean ENABLE_ELECTRICITY = true;
 	public static boolean CONSERVE_PACKETS = true;
 	public static int INTERDICTION_MURDER_ENERGY = 0;
+	public static int CALCULATION_THREADS = 0;
+	public static int CALCULATION_SLAB_SIZE = 65536;
+	public static int FIELD_TEMPLATE_MEMORY = 32;
 	public static final int MAX_FREQUENCY_DIGITS = 6;
 
 	public static void load()
@@ -80,6 +83,18 @@ public class Settings
 		maxFFGenPerTick.comment = "How many force field blocks can be generated per tick? Less reduces lag.";
 		MAX_FORCE_FIELDS_PER_TICK = maxFFGenPerTick.getInt(MAX_FORCE_FIELDS_PER_TICK);
 
+		Property calculationThreads = CONFIGURATION.get(Configuration.CATEGORY_GENERAL, "Field Calculation Threads", CALCULATION_THREADS);
+		calculationThreads.comment = "How many threads can calculate force fields at the same time? Set to 0 to use half of the available cores.";
+		CALCULATION_THREADS = calculationThreads.getInt(CALCULATION_THREADS);
+
+		Property calculationSlabSize = CONFIGURATION.get(Configuration.CATEGORY_GENERAL, "Field Calculation Slab Size", CALCULATION_SLAB_SIZE);
+		calculationSlabSize.comment = "How many field points are calculated per thread when a large field is split up? Fields smaller than two slabs are calculated on one thread. Set to 0 to never split fields.";
+		CALCULATION_SLAB_SIZE = calculationSlabSize.getInt(CALCULATION_SLAB_SIZE);
+
+		Property templateMemory = CONFIGURATION.get(Configuration.CATEGORY_GENERAL, "Custom Mode Cache Size", FIELD_TEMPLATE_MEMORY);
+		templateMemory.comment = "How many megabytes of custom mode fields can be kept in memory?";
+		FIELD_TEMPLATE_MEMORY = templateMemory.getInt(FIELD_TEMPLATE_MEMORY);
+
 		Property useElectricity = CONFIGURATION.get(Configuration.CATEGORY_GENERAL, "Require Electricity?", ENABLE_ELECTRICITY);
 		useElectricity.comment = "Turning this to false will make MFFS run without electricity or energy systems required. Great for vanilla!";
 		ENABLE_ELECTRICITY = useElectricity.getBoolean(ENABLE_ELECTRICITY);
@@ -1,7 +1,11 @@
 package mffs;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import mffs.api.security.IInterdictionMatrix;
 import mffs.api.security.Permission;
+import mffs.tileentity.FieldBoundsIndex;
+import mffs.tileentity.FieldChangeListener;
 import net.minecraft.client.Minecraft;
 import net.minecraftforge.client.event.TextureStitchEvent;
 import net.minecraftforge.event.Event.Result;
@@ -9,6 +13,7 @@ import net.minecraftforge.event.ForgeSubscribe;
 import net.minecraftforge.event.entity.living.LivingSpawnEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
 import net.minecraftforge.event.entity.player.PlayerInteractEvent.Action;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.liquids.LiquidDictionary;
 import universalelectricity.core.vector.Vector3;
 import cpw.mods.fml.relauncher.Side;
@@ -16,6 +21,13 @@ import cpw.mods.fml.relauncher.SideOnly;
 
 public class SubscribeEventHandler
 {
+	/**
+	 * Counters of the anti-spawn check. Spawns are checked on both the client and the server.
+	 */
+	private static final AtomicLong SPAWNS_CHECKED = new AtomicLong();
+	private static final AtomicLong SPAWNS_DENIED = new AtomicLong();
+	private static final AtomicLong SPAWN_CHECK_TIME = new AtomicLong();
+
 	@ForgeSubscribe
 	@SideOnly(Side.CLIENT)
 	public void textureHook(TextureStitchEvent.Post event)
@@ -72,17 +84,65 @@ public class SubscribeEventHandler
 		}
 	}
 
+	@ForgeSubscribe
+	public void worldUnloadEvent(WorldEvent.Unload evt)
+	{
+		if (!evt.world.isRemote)
+		{
+			FieldChangeListener.unload(evt.world);
+		}
+
+		FieldBoundsIndex.unload(evt.world);
+	}
+
 	@ForgeSubscribe
 	public void livingSpawnEvent(LivingSpawnEvent evt)
 	{
-		IInterdictionMatrix interdictionMatrix = MFFSHelper.getNearestInterdictionMatrix(evt.world, new Vector3(evt.entityLiving));
+		long startTime = System.nanoTime();
+
+		/**
+		 * Only actual spawns are counted, not despawn checks.
+		 */
+		boolean isSpawn = evt instanceof LivingSpawnEvent.CheckSpawn || evt instanceof LivingSpawnEvent.SpecialSpawn;
 
-		if (interdictionMatrix != null)
+		if (FieldBoundsIndex.get(evt.world).isSpawnDenied(evt.entityLiving.posX, evt.entityLiving.posY, evt.entityLiving.posZ))
 		{
-			if (interdictionMatrix.getModuleCount(ModularForceFieldSystem.itemModuleAntiSpawn) > 0)
+			evt.setResult(Result.DENY);
+
+			if (isSpawn)
 			{
-				evt.setResult(Result.DENY);
+				SPAWNS_DENIED.incrementAndGet();
 			}
 		}
+
+		if (isSpawn)
+		{
+			SPAWNS_CHECKED.incrementAndGet();
+			SPAWN_CHECK_TIME.addAndGet(System.nanoTime() - startTime);
+		}
+	}
+
+	public static long getSpawnsChecked()
+	{
+		return SPAWNS_CHECKED.get();
+	}
+
+	public static long getSpawnsDenied()
+	{
+		return SPAWNS_DENIED.get();
+	}
+
+	/**
+	 * @return The total time spent checking spawns, in nanoseconds.
+	 */
+	public static long getSpawnCheckTime()
+	{
+		return SPAWN_CHECK_TIME.get();
+	}
+
+	public static String getSpawnStatistics()
+	{
+		long checked = getSpawnsChecked();
+		return "Spawns checked: " + checked + ", denied: " + getSpawnsDenied() + ", average check: " + (checked > 0 ? getSpawnCheckTime() / checked : 0) + " ns";
 	}
 }
@@ -0,0 +1,550 @@
+package mffs.api;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import universalelectricity.core.vector.Vector3;
+
+/**
+ * A set of block positions bucketed by chunk. Each bucket is a PositionSet holding the positions
+ * inside one 16x16 chunk column, so work on the field can be done one chunk at a time. This set
+ * is not thread safe.
+ *
+ * @author Calclavia
+ *
+ */
+public class ChunkPositionSet implements IPositionSink
+{
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * Bucket table, keyed by packed chunk coordinates. Buckets are never removed from the table
+	 * until the set is cleared or trimmed, empty ones are skipped instead.
+	 */
+	private long[] chunkKeys;
+	private Bucket[] buckets;
+	private int bucketCount;
+	private int mask;
+
+	private int size;
+
+	/**
+	 * The last bucket accessed. Positions are usually added and looked up close to each other.
+	 */
+	private Bucket lastBucket;
+
+	/**
+	 * Bounds of all positions ever added, used to reject lookups quickly.
+	 */
+	private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+	private int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+	public ChunkPositionSet()
+	{
+		this.allocate(MIN_CAPACITY);
+	}
+
+	public static long packChunk(int chunkX, int chunkZ)
+	{
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	@Override
+	public boolean add(int x, int y, int z)
+	{
+		if (this.getOrCreateBucket(x >> 4, z >> 4).positions.add(x, y, z))
+		{
+			this.size++;
+			this.expandBounds(x, y, z);
+			return true;
+		}
+
+		return false;
+	}
+
+	public boolean add(Vector3 position)
+	{
+		return this.add(position.intX(), position.intY(), position.intZ());
+	}
+
+	public boolean add(long key)
+	{
+		return this.add(PositionSet.unpackX(key), PositionSet.unpackY(key), PositionSet.unpackZ(key));
+	}
+
+	public void addAll(PositionSet set)
+	{
+		PositionSet.Cursor cursor = set.cursor();
+
+		while (cursor.next())
+		{
+			this.add(cursor.x(), cursor.y(), cursor.z());
+		}
+	}
+
+	public void addAll(ChunkPositionSet set)
+	{
+		for (Bucket bucket : set.buckets)
+		{
+			if (bucket != null && !bucket.positions.isEmpty())
+			{
+				Bucket target = this.getOrCreateBucket(bucket.chunkX, bucket.chunkZ);
+				int oldSize = target.positions.size();
+				target.positions.addAll(bucket.positions);
+				this.size += target.positions.size() - oldSize;
+			}
+		}
+
+		if (!set.isEmpty())
+		{
+			this.expandBounds(set.minX, set.minY, set.minZ);
+			this.expandBounds(set.maxX, set.maxY, set.maxZ);
+		}
+	}
+
+	public boolean contains(int x, int y, int z)
+	{
+		if (x < this.minX || x > this.maxX || y < this.minY || y > this.maxY || z < this.minZ || z > this.maxZ)
+		{
+			return false;
+		}
+
+		Bucket bucket = this.getBucket(x >> 4, z >> 4);
+		return bucket != null && bucket.positions.contains(x, y, z);
+	}
+
+	public boolean contains(long key)
+	{
+		return this.contains(PositionSet.unpackX(key), PositionSet.unpackY(key), PositionSet.unpackZ(key));
+	}
+
+	public boolean remove(int x, int y, int z)
+	{
+		Bucket bucket = this.getBucket(x >> 4, z >> 4);
+
+		if (bucket != null && bucket.positions.remove(x, y, z))
+		{
+			this.size--;
+			return true;
+		}
+
+		return false;
+	}
+
+	public boolean remove(long key)
+	{
+		return this.remove(PositionSet.unpackX(key), PositionSet.unpackY(key), PositionSet.unpackZ(key));
+	}
+
+	/**
+	 * Removes a position from the given bucket, keeping the size of this set correct.
+	 */
+	public boolean remove(Bucket bucket, long key)
+	{
+		if (bucket.positions.remove(key))
+		{
+			this.size--;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Removes the current position of a cursor walking the given bucket, keeping the size of this
+	 * set correct.
+	 */
+	public void remove(Bucket bucket, PositionSet.Cursor cursor)
+	{
+		cursor.remove();
+		this.size--;
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	public boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+
+	/**
+	 * The bounds of all positions ever added. Removing positions does not shrink them.
+	 */
+	public int getMinX()
+	{
+		return this.minX;
+	}
+
+	public int getMinY()
+	{
+		return this.minY;
+	}
+
+	public int getMinZ()
+	{
+		return this.minZ;
+	}
+
+	public int getMaxX()
+	{
+		return this.maxX;
+	}
+
+	public int getMaxY()
+	{
+		return this.maxY;
+	}
+
+	public int getMaxZ()
+	{
+		return this.maxZ;
+	}
+
+	public void clear()
+	{
+		if (this.bucketCount > 0)
+		{
+			this.allocate(MIN_CAPACITY);
+		}
+
+		this.size = 0;
+		this.minX = this.minY = this.minZ = Integer.MAX_VALUE;
+		this.maxX = this.maxY = this.maxZ = Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Drops empty buckets and shrinks the remaining ones.
+	 */
+	public void trimToSize()
+	{
+		Bucket[] oldBuckets = this.buckets;
+		this.allocate(MIN_CAPACITY);
+
+		for (Bucket bucket : oldBuckets)
+		{
+			if (bucket != null && !bucket.positions.isEmpty())
+			{
+				bucket.positions.trimToSize();
+				this.insertBucket(bucket);
+			}
+		}
+	}
+
+	public ChunkPositionSet copy()
+	{
+		ChunkPositionSet copy = new ChunkPositionSet();
+		copy.addAll(this);
+		return copy;
+	}
+
+	/**
+	 * @return The non-empty buckets of this set. Positions may be removed from a bucket through
+	 * remove(Bucket, long) or remove(Bucket, Cursor) while walking, but no buckets may be added.
+	 */
+	public Iterable<Bucket> buckets()
+	{
+		return new Iterable<Bucket>()
+		{
+			@Override
+			public Iterator<Bucket> iterator()
+			{
+				return new Iterator<Bucket>()
+				{
+					private int index = this.seek(0);
+
+					private int seek(int index)
+					{
+						while (index < buckets.length && (buckets[index] == null || buckets[index].positions.isEmpty()))
+						{
+							index++;
+						}
+
+						return index;
+					}
+
+					@Override
+					public boolean hasNext()
+					{
+						return this.index < buckets.length;
+					}
+
+					@Override
+					public Bucket next()
+					{
+						if (!this.hasNext())
+						{
+							throw new NoSuchElementException();
+						}
+
+						Bucket bucket = buckets[this.index];
+						this.index = this.seek(this.index + 1);
+						return bucket;
+					}
+
+					@Override
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * @return All positions in this set, packed, grouped by chunk.
+	 */
+	public long[] toLongArray()
+	{
+		long[] array = new long[this.size];
+		int i = 0;
+
+		for (Bucket bucket : this.buckets())
+		{
+			long[] positions = bucket.positions.toLongArray();
+			System.arraycopy(positions, 0, array, i, positions.length);
+			i += positions.length;
+		}
+
+		return array;
+	}
+
+	/**
+	 * @return A live Set<Vector3> view of this set, for compatibility with code that works on
+	 * vectors. Each access allocates vectors, so avoid it on hot paths.
+	 */
+	public Set<Vector3> asVectorSet()
+	{
+		return new VectorView();
+	}
+
+	/**
+	 * @return The approximate amount of memory used by the buckets in bytes.
+	 */
+	public long getMemoryUsage()
+	{
+		long memory = this.chunkKeys.length * 16L;
+
+		for (Bucket bucket : this.buckets)
+		{
+			if (bucket != null)
+			{
+				memory += bucket.positions.getMemoryUsage();
+			}
+		}
+
+		return memory;
+	}
+
+	private void expandBounds(int x, int y, int z)
+	{
+		this.minX = Math.min(this.minX, x);
+		this.minY = Math.min(this.minY, y);
+		this.minZ = Math.min(this.minZ, z);
+		this.maxX = Math.max(this.maxX, x);
+		this.maxY = Math.max(this.maxY, y);
+		this.maxZ = Math.max(this.maxZ, z);
+	}
+
+	private Bucket getBucket(int chunkX, int chunkZ)
+	{
+		Bucket last = this.lastBucket;
+
+		if (last != null && last.chunkX == chunkX && last.chunkZ == chunkZ)
+		{
+			return last;
+		}
+
+		long key = packChunk(chunkX, chunkZ);
+		int slot = this.indexOf(key);
+
+		while (this.buckets[slot] != null)
+		{
+			if (this.chunkKeys[slot] == key)
+			{
+				return this.lastBucket = this.buckets[slot];
+			}
+
+			slot = (slot + 1) & this.mask;
+		}
+
+		return null;
+	}
+
+	private Bucket getOrCreateBucket(int chunkX, int chunkZ)
+	{
+		Bucket bucket = this.getBucket(chunkX, chunkZ);
+
+		if (bucket == null)
+		{
+			bucket = new Bucket(chunkX, chunkZ);
+			this.insertBucket(bucket);
+			this.lastBucket = bucket;
+		}
+
+		return bucket;
+	}
+
+	private void insertBucket(Bucket bucket)
+	{
+		if ((this.bucketCount + 1) * 4 > this.buckets.length * 3)
+		{
+			Bucket[] oldBuckets = this.buckets;
+			this.allocate(this.buckets.length << 1);
+
+			for (Bucket oldBucket : oldBuckets)
+			{
+				if (oldBucket != null)
+				{
+					this.insertBucket(oldBucket);
+				}
+			}
+		}
+
+		long key = packChunk(bucket.chunkX, bucket.chunkZ);
+		int slot = this.indexOf(key);
+
+		while (this.buckets[slot] != null)
+		{
+			slot = (slot + 1) & this.mask;
+		}
+
+		this.chunkKeys[slot] = key;
+		this.buckets[slot] = bucket;
+		this.bucketCount++;
+	}
+
+	private void allocate(int capacity)
+	{
+		this.chunkKeys = new long[capacity];
+		this.buckets = new Bucket[capacity];
+		this.bucketCount = 0;
+		this.mask = capacity - 1;
+		this.lastBucket = null;
+	}
+
+	private int indexOf(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & this.mask;
+	}
+
+	/**
+	 * The positions inside one chunk column.
+	 */
+	public static class Bucket
+	{
+		public final int chunkX;
+		public final int chunkZ;
+		public final PositionSet positions = new PositionSet();
+
+		private Bucket(int chunkX, int chunkZ)
+		{
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+		}
+	}
+
+	private class VectorView extends AbstractSet<Vector3>
+	{
+		@Override
+		public Iterator<Vector3> iterator()
+		{
+			// Iterates a snapshot so that removal through the iterator is safe.
+			final long[] snapshot = toLongArray();
+
+			return new Iterator<Vector3>()
+			{
+				private int index = 0;
+
+				@Override
+				public boolean hasNext()
+				{
+					return this.index < snapshot.length;
+				}
+
+				@Override
+				public Vector3 next()
+				{
+					if (!this.hasNext())
+					{
+						throw new NoSuchElementException();
+					}
+
+					return PositionSet.toVector(snapshot[this.index++]);
+				}
+
+				@Override
+				public void remove()
+				{
+					if (this.index <= 0)
+					{
+						throw new IllegalStateException();
+					}
+
+					ChunkPositionSet.this.remove(snapshot[this.index - 1]);
+				}
+			};
+		}
+
+		@Override
+		public int size()
+		{
+			return ChunkPositionSet.this.size();
+		}
+
+		@Override
+		public boolean add(Vector3 position)
+		{
+			return ChunkPositionSet.this.add(position);
+		}
+
+		@Override
+		public boolean contains(Object object)
+		{
+			if (object instanceof Vector3)
+			{
+				Vector3 position = (Vector3) object;
+
+				if (isBlockPosition(position))
+				{
+					return ChunkPositionSet.this.contains(position.intX(), position.intY(), position.intZ());
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public boolean remove(Object object)
+		{
+			if (object instanceof Vector3)
+			{
+				Vector3 position = (Vector3) object;
+
+				if (isBlockPosition(position))
+				{
+					return ChunkPositionSet.this.remove(position.intX(), position.intY(), position.intZ());
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public void clear()
+		{
+			ChunkPositionSet.this.clear();
+		}
+
+		private boolean isBlockPosition(Vector3 position)
+		{
+			return position.x == Math.floor(position.x) && position.y == Math.floor(position.y) && position.z == Math.floor(position.z);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package mffs.api;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import universalelectricity.core.vector.Vector3;
+
+/**
+ * A cached isInField test of a projector. Positions outside the bounding box of the calculated
+ * field are rejected right away. Inside the box, the answer of the mode is remembered in bitsets
+ * so each block is only tested once. The bitsets are kept per 16x16x16 section and only allocated
+ * once a block of the section is tested, so the memory use follows the blocks actually looked at
+ * rather than the size of the field. This class is not thread safe.
+ *
+ * @author Calclavia
+ *
+ */
+public class FieldOccupancy
+{
+	private final IProjector projector;
+
+	private final int minX, minY, minZ, maxX, maxY, maxZ;
+
+	/**
+	 * Sections tested so far, keyed by packed section coordinates.
+	 */
+	private final Map<Long, Section> sections = new HashMap<Long, Section>();
+
+	/**
+	 * The last section accessed. Lookups are usually close to each other.
+	 */
+	private Section lastSection;
+
+	/**
+	 * @return The occupancy of a projector's calculated field, or null if it has no field yet.
+	 */
+	public static FieldOccupancy create(IProjector projector)
+	{
+		ChunkPositionSet field = projector.getCalculatedPositions();
+
+		if (field.isEmpty() || projector.getMode() == null)
+		{
+			return null;
+		}
+
+		/**
+		 * The calculated field is rounded, so the box is grown by a block to hold every position
+		 * the mode can consider in the field.
+		 */
+		return new FieldOccupancy(projector, field.getMinX() - 1, field.getMinY() - 1, field.getMinZ() - 1, field.getMaxX() + 1, field.getMaxY() + 1, field.getMaxZ() + 1);
+	}
+
+	public FieldOccupancy(IProjector projector, int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+	{
+		this.projector = projector;
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.maxZ = maxZ;
+	}
+
+	public boolean isInBounds(int x, int y, int z)
+	{
+		return x >= this.minX && x <= this.maxX && y >= this.minY && y <= this.maxY && z >= this.minZ && z <= this.maxZ;
+	}
+
+	/**
+	 * @return True if the bounding boxes of both fields overlap.
+	 */
+	public boolean intersects(FieldOccupancy other)
+	{
+		return this.minX <= other.maxX && this.maxX >= other.minX && this.minY <= other.maxY && this.maxY >= other.minY && this.minZ <= other.maxZ && this.maxZ >= other.minZ;
+	}
+
+	/**
+	 * @return The same as the mode's isInField for a block position.
+	 */
+	public boolean isInField(int x, int y, int z)
+	{
+		if (!this.isInBounds(x, y, z))
+		{
+			return false;
+		}
+
+		Section section = this.getSection(x >> 4, y >> 4, z >> 4);
+		int index = ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+
+		if (!section.tested.get(index))
+		{
+			section.tested.set(index);
+
+			if (this.projector.getMode().isInField(this.projector, new Vector3(x, y, z)))
+			{
+				section.occupied.set(index);
+			}
+		}
+
+		return section.occupied.get(index);
+	}
+
+	private Section getSection(int sectionX, int sectionY, int sectionZ)
+	{
+		Section section = this.lastSection;
+
+		if (section != null && section.x == sectionX && section.y == sectionY && section.z == sectionZ)
+		{
+			return section;
+		}
+
+		Long key = PositionSet.pack(sectionX, sectionY, sectionZ);
+		section = this.sections.get(key);
+
+		if (section == null)
+		{
+			section = new Section(sectionX, sectionY, sectionZ);
+			this.sections.put(key, section);
+		}
+
+		this.lastSection = section;
+		return section;
+	}
+
+	/**
+	 * Which blocks of a section have been tested, and which of those are in the field.
+	 */
+	private static class Section
+	{
+		final int x, y, z;
+		final BitSet tested = new BitSet(4096);
+		final BitSet occupied = new BitSet(4096);
+
+		Section(int x, int y, int z)
+		{
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+	}
+}
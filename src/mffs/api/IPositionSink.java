@@ -0,0 +1,16 @@
+package mffs.api;
+
+/**
+ * Receives integer block positions, such as the positions of a force field as they are
+ * calculated.
+ * 
+ * @author Calclavia
+ * 
+ */
+public interface IPositionSink
+{
+	/**
+	 * @return True if the position was not in the sink yet.
+	 */
+	public boolean add(int x, int y, int z);
+}
@@ -5,6 +5,7 @@ import java.util.Set;
 import mffs.api.modules.IModule;
 import mffs.api.modules.IModuleAcceptor;
 import mffs.api.modules.IProjectorMode;
+import mffs.api.modules.ModuleSlotGroup;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraftforge.common.ForgeDirection;
@@ -60,6 +61,11 @@ public abstract interface IProjector extends IInventory, IModuleAcceptor, IRotat
 	 */
 	public int[] getModuleSlots();
 
+	/**
+	 * @return The slot group of getModuleSlots().
+	 */
+	public ModuleSlotGroup getModuleSlotGroup();
+
 	/**
 	 * @param module - The module instance.
 	 * @param direction - The direction facing.
@@ -73,10 +79,28 @@ public abstract interface IProjector extends IInventory, IModuleAcceptor, IRotat
 	public int[] getSlotsBasedOnDirection(ForgeDirection direction);
 
 	/**
-	 * * @return Gets all the blocks that are occupying the force field.
+	 * @return The slot group of getSlotsBasedOnDirection(direction).
+	 */
+	public ModuleSlotGroup getSlotGroup(ForgeDirection direction);
+
+	/**
+	 * * @return Gets all the blocks that are occupying the force field. This is a view of
+	 * getCalculatedPositions() kept for compatibility.
 	 */
 	public Set<Vector3> getCalculatedField();
 
+	/**
+	 * @return Gets all the blocks that are occupying the force field, packed and bucketed by
+	 * chunk.
+	 */
+	public ChunkPositionSet getCalculatedPositions();
+
+	/**
+	 * @return A cached isInField test of the calculated field, or null if there is no calculated
+	 * field yet.
+	 */
+	public FieldOccupancy getOccupancy();
+
 	/**
 	 * @return The speed in which a force field is constructed.
 	 */
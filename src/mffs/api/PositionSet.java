@@ -0,0 +1,650 @@
+package mffs.api;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import universalelectricity.core.vector.Vector3;
+
+/**
+ * A compact set of block positions. Each position is packed into a single long and stored in an
+ * open-addressing table, so a position costs 8-16 bytes instead of a boxed Vector3 and a hash
+ * entry. This set is not thread safe.
+ *
+ * @author Calclavia
+ *
+ */
+public class PositionSet implements IPositionSink
+{
+	/**
+	 * X and Z use 26 bits each, Y uses 12 bits. All are signed.
+	 */
+	private static final int XZ_BITS = 26;
+	private static final int Y_BITS = 12;
+	private static final int Z_SHIFT = Y_BITS;
+	private static final int X_SHIFT = Y_BITS + XZ_BITS;
+	private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+	private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+	/**
+	 * Marks an empty slot. The one position that packs into this value is tracked separately.
+	 */
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private int mask;
+	private int size;
+	private int resizeThreshold;
+	private boolean containsEmptyKey;
+
+	public PositionSet()
+	{
+		this(MIN_CAPACITY);
+	}
+
+	public PositionSet(int expectedSize)
+	{
+		this.allocate(tableSizeFor((int) Math.ceil(expectedSize / LOAD_FACTOR)));
+	}
+
+	public static long pack(int x, int y, int z)
+	{
+		return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+	}
+
+	public static int unpackX(long key)
+	{
+		return (int) (key >> X_SHIFT);
+	}
+
+	public static int unpackY(long key)
+	{
+		return (int) (key << (64 - Y_BITS) >> (64 - Y_BITS));
+	}
+
+	public static int unpackZ(long key)
+	{
+		return (int) (key << (64 - X_SHIFT) >> (64 - XZ_BITS));
+	}
+
+	public static Vector3 toVector(long key)
+	{
+		return new Vector3(unpackX(key), unpackY(key), unpackZ(key));
+	}
+
+	@Override
+	public boolean add(int x, int y, int z)
+	{
+		return this.add(pack(x, y, z));
+	}
+
+	public boolean add(Vector3 position)
+	{
+		return this.add(pack(position.intX(), position.intY(), position.intZ()));
+	}
+
+	public boolean add(long key)
+	{
+		if (key == EMPTY)
+		{
+			if (this.containsEmptyKey)
+			{
+				return false;
+			}
+
+			this.containsEmptyKey = true;
+			this.size++;
+			return true;
+		}
+
+		int slot = this.indexOf(key);
+
+		while (this.keys[slot] != EMPTY)
+		{
+			if (this.keys[slot] == key)
+			{
+				return false;
+			}
+
+			slot = (slot + 1) & this.mask;
+		}
+
+		this.keys[slot] = key;
+
+		if (++this.size > this.resizeThreshold)
+		{
+			this.allocateAndRehash(this.keys.length << 1);
+		}
+
+		return true;
+	}
+
+	public void addAll(PositionSet set)
+	{
+		if (set.containsEmptyKey)
+		{
+			this.add(EMPTY);
+		}
+
+		for (long key : set.keys)
+		{
+			if (key != EMPTY)
+			{
+				this.add(key);
+			}
+		}
+	}
+
+	public boolean contains(int x, int y, int z)
+	{
+		return this.contains(pack(x, y, z));
+	}
+
+	public boolean contains(long key)
+	{
+		if (key == EMPTY)
+		{
+			return this.containsEmptyKey;
+		}
+
+		int slot = this.indexOf(key);
+
+		while (this.keys[slot] != EMPTY)
+		{
+			if (this.keys[slot] == key)
+			{
+				return true;
+			}
+
+			slot = (slot + 1) & this.mask;
+		}
+
+		return false;
+	}
+
+	public boolean remove(int x, int y, int z)
+	{
+		return this.remove(pack(x, y, z));
+	}
+
+	public boolean remove(long key)
+	{
+		if (key == EMPTY)
+		{
+			if (this.containsEmptyKey)
+			{
+				this.containsEmptyKey = false;
+				this.size--;
+				return true;
+			}
+
+			return false;
+		}
+
+		int slot = this.indexOf(key);
+
+		while (this.keys[slot] != EMPTY)
+		{
+			if (this.keys[slot] == key)
+			{
+				this.shiftKeys(slot);
+				this.size--;
+				return true;
+			}
+
+			slot = (slot + 1) & this.mask;
+		}
+
+		return false;
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	public boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+
+	public void clear()
+	{
+		if (this.size > 0)
+		{
+			Arrays.fill(this.keys, EMPTY);
+			this.containsEmptyKey = false;
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * Shrinks the table if it is much larger than the amount of positions left, so that walking
+	 * or copying a mostly emptied set stays cheap.
+	 */
+	public void trimToSize()
+	{
+		int capacity = tableSizeFor((int) Math.ceil(this.size / LOAD_FACTOR));
+
+		if (capacity < this.keys.length)
+		{
+			this.allocateAndRehash(capacity);
+		}
+	}
+
+	public PositionSet copy()
+	{
+		PositionSet copy = new PositionSet();
+		copy.keys = this.keys.clone();
+		copy.mask = this.mask;
+		copy.size = this.size;
+		copy.resizeThreshold = this.resizeThreshold;
+		copy.containsEmptyKey = this.containsEmptyKey;
+		return copy;
+	}
+
+	/**
+	 * @return All positions in this set, packed.
+	 */
+	public long[] toLongArray()
+	{
+		long[] array = new long[this.size];
+		int i = 0;
+
+		if (this.containsEmptyKey)
+		{
+			array[i++] = EMPTY;
+		}
+
+		for (long key : this.keys)
+		{
+			if (key != EMPTY)
+			{
+				array[i++] = key;
+			}
+		}
+
+		return array;
+	}
+
+	/**
+	 * @return A cursor to walk over this set without allocating a Vector3 per position. The set
+	 * must not be modified while the cursor is in use, except through Cursor.remove().
+	 */
+	public Cursor cursor()
+	{
+		return new Cursor();
+	}
+
+	/**
+	 * @return A live Set<Vector3> view of this set, for compatibility with code that works on
+	 * vectors. Each access allocates vectors, so avoid it on hot paths.
+	 */
+	public Set<Vector3> asVectorSet()
+	{
+		return new VectorView();
+	}
+
+	/**
+	 * @return The approximate amount of memory used by the table in bytes.
+	 */
+	public long getMemoryUsage()
+	{
+		return this.keys.length * 8L;
+	}
+
+	private int indexOf(long key)
+	{
+		// MurmurHash3 finalizer to spread the packed coordinates.
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) h & this.mask;
+	}
+
+	/**
+	 * Backward shift deletion, keeping the probe sequences intact without tombstones.
+	 */
+	private void shiftKeys(int slot)
+	{
+		while (true)
+		{
+			int last = slot;
+			slot = (slot + 1) & this.mask;
+			long key;
+
+			while (true)
+			{
+				key = this.keys[slot];
+
+				if (key == EMPTY)
+				{
+					this.keys[last] = EMPTY;
+					return;
+				}
+
+				int ideal = this.indexOf(key);
+
+				if (last <= slot ? (last >= ideal || ideal > slot) : (last >= ideal && ideal > slot))
+				{
+					break;
+				}
+
+				slot = (slot + 1) & this.mask;
+			}
+
+			this.keys[last] = key;
+		}
+	}
+
+	private void allocate(int capacity)
+	{
+		this.keys = new long[capacity];
+		Arrays.fill(this.keys, EMPTY);
+		this.mask = capacity - 1;
+		this.resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private void allocateAndRehash(int capacity)
+	{
+		long[] oldKeys = this.keys;
+		this.allocate(capacity);
+
+		for (long key : oldKeys)
+		{
+			if (key != EMPTY)
+			{
+				int slot = this.indexOf(key);
+
+				while (this.keys[slot] != EMPTY)
+				{
+					slot = (slot + 1) & this.mask;
+				}
+
+				this.keys[slot] = key;
+			}
+		}
+	}
+
+	private static int tableSizeFor(int capacity)
+	{
+		int size = MIN_CAPACITY;
+
+		while (size < capacity && size < (1 << 30))
+		{
+			size <<= 1;
+		}
+
+		return size;
+	}
+
+	/**
+	 * Walks over the positions of the set. The table is walked from the end, so that a removal
+	 * through remove() only shifts keys that were already visited, except for keys wrapping around
+	 * from the start of the table, which are remembered and visited at the end.
+	 */
+	public class Cursor
+	{
+		private static final int NONE = -1;
+		private static final int EMPTY_KEY = -2;
+		private static final int WRAPPED = -3;
+
+		private int slot = keys.length;
+		private boolean visitedEmptyKey = false;
+		private long key;
+		private int current = NONE;
+
+		private long[] wrapped;
+		private int wrappedCount;
+
+		/**
+		 * Moves to the next position.
+		 *
+		 * @return False if there are no more positions.
+		 */
+		public boolean next()
+		{
+			if (!this.visitedEmptyKey)
+			{
+				this.visitedEmptyKey = true;
+
+				if (containsEmptyKey)
+				{
+					this.key = EMPTY;
+					this.current = EMPTY_KEY;
+					return true;
+				}
+			}
+
+			while (--this.slot >= 0)
+			{
+				if (keys[this.slot] != EMPTY)
+				{
+					this.key = keys[this.slot];
+					this.current = this.slot;
+					return true;
+				}
+			}
+
+			if (this.wrappedCount > 0)
+			{
+				this.key = this.wrapped[--this.wrappedCount];
+				this.current = WRAPPED;
+				return true;
+			}
+
+			this.current = NONE;
+			return false;
+		}
+
+		/**
+		 * Removes the current position from the set without disturbing the walk.
+		 */
+		public void remove()
+		{
+			if (this.current == NONE)
+			{
+				throw new IllegalStateException();
+			}
+
+			if (this.current == EMPTY_KEY)
+			{
+				containsEmptyKey = false;
+				size--;
+			}
+			else if (this.current == WRAPPED)
+			{
+				// Every slot has been visited, so shifting can no longer hide a key.
+				PositionSet.this.remove(this.key);
+			}
+			else
+			{
+				this.shiftKeys(this.current);
+				size--;
+			}
+
+			this.current = NONE;
+		}
+
+		/**
+		 * Backward shift deletion like PositionSet.shiftKeys(int), remembering the keys that move
+		 * from the unvisited start of the table into the visited part.
+		 */
+		private void shiftKeys(int slot)
+		{
+			while (true)
+			{
+				int last = slot;
+				slot = (slot + 1) & mask;
+				long key;
+
+				while (true)
+				{
+					key = keys[slot];
+
+					if (key == EMPTY)
+					{
+						keys[last] = EMPTY;
+						return;
+					}
+
+					int ideal = indexOf(key);
+
+					if (last <= slot ? (last >= ideal || ideal > slot) : (last >= ideal && ideal > slot))
+					{
+						break;
+					}
+
+					slot = (slot + 1) & mask;
+				}
+
+				if (slot < last)
+				{
+					this.addWrapped(key);
+				}
+
+				keys[last] = key;
+			}
+		}
+
+		private void addWrapped(long key)
+		{
+			if (this.wrapped == null)
+			{
+				this.wrapped = new long[4];
+			}
+			else if (this.wrappedCount == this.wrapped.length)
+			{
+				this.wrapped = Arrays.copyOf(this.wrapped, this.wrappedCount * 2);
+			}
+
+			this.wrapped[this.wrappedCount++] = key;
+		}
+
+		public long key()
+		{
+			return this.key;
+		}
+
+		public int x()
+		{
+			return unpackX(this.key);
+		}
+
+		public int y()
+		{
+			return unpackY(this.key);
+		}
+
+		public int z()
+		{
+			return unpackZ(this.key);
+		}
+	}
+
+	private class VectorView extends AbstractSet<Vector3>
+	{
+		@Override
+		public Iterator<Vector3> iterator()
+		{
+			// Iterates a snapshot so that removal through the iterator is safe.
+			final long[] snapshot = toLongArray();
+
+			return new Iterator<Vector3>()
+			{
+				private int index = 0;
+
+				@Override
+				public boolean hasNext()
+				{
+					return this.index < snapshot.length;
+				}
+
+				@Override
+				public Vector3 next()
+				{
+					if (!this.hasNext())
+					{
+						throw new NoSuchElementException();
+					}
+
+					return toVector(snapshot[this.index++]);
+				}
+
+				@Override
+				public void remove()
+				{
+					if (this.index <= 0)
+					{
+						throw new IllegalStateException();
+					}
+
+					PositionSet.this.remove(snapshot[this.index - 1]);
+				}
+			};
+		}
+
+		@Override
+		public int size()
+		{
+			return PositionSet.this.size();
+		}
+
+		@Override
+		public boolean add(Vector3 position)
+		{
+			return PositionSet.this.add(position);
+		}
+
+		@Override
+		public boolean contains(Object object)
+		{
+			if (object instanceof Vector3)
+			{
+				Vector3 position = (Vector3) object;
+
+				if (isBlockPosition(position))
+				{
+					return PositionSet.this.contains(position.intX(), position.intY(), position.intZ());
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public boolean remove(Object object)
+		{
+			if (object instanceof Vector3)
+			{
+				Vector3 position = (Vector3) object;
+
+				if (isBlockPosition(position))
+				{
+					return PositionSet.this.remove(position.intX(), position.intY(), position.intZ());
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public void clear()
+		{
+			PositionSet.this.clear();
+		}
+
+		private boolean isBlockPosition(Vector3 position)
+		{
+			return position.x == Math.floor(position.x) && position.y == Math.floor(position.y) && position.z == Math.floor(position.z);
+		}
+	}
+}
@@ -22,6 +22,11 @@ public interface IModule
 	 * Called before the projector projects a field.
 	 * 
 	 * @param projector
+	 * @param field - The positions of the field still waiting to be projected, not the whole
+	 * field. Positions removed from this set are not projected, and the projector's blocks there
+	 * are removed. They are only visited again once their block changes, a field overlapping this
+	 * one is projected, moved or removed, or the field is recalculated. Adding to the set is not
+	 * supported.
 	 * @return True to stop projecting.
 	 */
 	boolean onProject(IProjector projector, Set<Vector3> field);
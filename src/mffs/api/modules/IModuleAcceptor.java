@@ -14,5 +14,14 @@ public interface IModuleAcceptor
 
 	public Set<IModule> getModules(int... slots);
 
+	/**
+	 * Slot group versions of the methods above. These avoid building a slot array on each call.
+	 */
+	public int getModuleCount(IModule module, ModuleSlotGroup group);
+
+	public Set<ItemStack> getModuleStacks(ModuleSlotGroup group);
+
+	public Set<IModule> getModules(ModuleSlotGroup group);
+
 	public int getFortronCost();
 }
@@ -0,0 +1,35 @@
+package mffs.api.modules;
+
+import mffs.api.IPositionSink;
+import mffs.api.IProjector;
+
+/**
+ * Implemented by projector modes that can write their shape as integer block positions. The
+ * projector uses this instead of getExteriorPoints when the field is not rotated, or rotated by
+ * multiples of 90 degrees if isAxisRotatable. The positions must be the same blocks
+ * getExteriorPoints gives after rounding, and may be given more than once.
+ * 
+ * @author Calclavia
+ * 
+ */
+public interface IProjectorModeKernel extends IProjectorMode
+{
+	/**
+	 * Writes the exterior points of the field to the sink. Like getExteriorPoints, the points are
+	 * NOT affected by rotation or translation.
+	 */
+	public void writeExteriorPoints(IProjector projector, IPositionSink sink);
+
+	/**
+	 * @return True if the shape looks the same under any rotation. The field is then never
+	 * rotated, and always written with writeExteriorPoints.
+	 */
+	public boolean isRotationInvariant();
+
+	/**
+	 * @return True if the written blocks, rotated by multiples of 90 degrees, are the same blocks
+	 * getExteriorPoints gives rotated and then rounded. Otherwise rotated fields are calculated
+	 * from getExteriorPoints.
+	 */
+	public boolean isAxisRotatable();
+}
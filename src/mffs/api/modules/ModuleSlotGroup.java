@@ -0,0 +1,81 @@
+package mffs.api.modules;
+
+/**
+ * An immutable group of module slots, such as the slots of one side of a projector. Each group has
+ * a unique ID so module counts of a group can be stored and looked up by it.
+ *
+ * @author Calclavia
+ *
+ */
+public final class ModuleSlotGroup
+{
+	/**
+	 * Every group created so far, indexed by ID.
+	 */
+	private static ModuleSlotGroup[] groups = new ModuleSlotGroup[0];
+
+	private final int id;
+	private final int[] slots;
+
+	public ModuleSlotGroup(int... slots)
+	{
+		this.slots = slots.clone();
+
+		synchronized (ModuleSlotGroup.class)
+		{
+			this.id = groups.length;
+			ModuleSlotGroup[] newGroups = new ModuleSlotGroup[this.id + 1];
+			System.arraycopy(groups, 0, newGroups, 0, this.id);
+			newGroups[this.id] = this;
+			groups = newGroups;
+		}
+	}
+
+	/**
+	 * @return All groups created so far, indexed by ID. Groups are normally created once as
+	 * constants, so this rarely changes after startup.
+	 */
+	public static synchronized ModuleSlotGroup[] getGroups()
+	{
+		return groups.clone();
+	}
+
+	/**
+	 * @return The unique ID of this group, counting up from zero.
+	 */
+	public int getID()
+	{
+		return this.id;
+	}
+
+	public int size()
+	{
+		return this.slots.length;
+	}
+
+	public int getSlot(int index)
+	{
+		return this.slots[index];
+	}
+
+	public boolean contains(int slotID)
+	{
+		for (int slot : this.slots)
+		{
+			if (slot == slotID)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return A copy of the slot IDs.
+	 */
+	public int[] toArray()
+	{
+		return this.slots.clone();
+	}
+}
@@ -0,0 +1,416 @@
+package mffs.base;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dynamic bounding box tree. Each value has an axis aligned box of block coordinates, and the
+ * tree keeps every parent box around its children so queries only descend into boxes that can
+ * match. The tree is rebalanced on every change, so its height stays logarithmic in the amount of
+ * values. Not thread safe.
+ *
+ * @author Calclavia
+ *
+ */
+public class BoundsTree<T>
+{
+	private final Map<T, Node<T>> leaves = new HashMap<T, Node<T>>();
+	private Node<T> root;
+
+	/**
+	 * Adds a value, or moves it if it is already in the tree.
+	 */
+	public void put(T value, int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+	{
+		Node<T> leaf = this.leaves.get(value);
+
+		if (leaf != null)
+		{
+			if (leaf.minX == minX && leaf.minY == minY && leaf.minZ == minZ && leaf.maxX == maxX && leaf.maxY == maxY && leaf.maxZ == maxZ)
+			{
+				return;
+			}
+
+			this.removeLeaf(leaf);
+		}
+		else
+		{
+			leaf = new Node<T>();
+			leaf.value = value;
+			this.leaves.put(value, leaf);
+		}
+
+		leaf.set(minX, minY, minZ, maxX, maxY, maxZ);
+		this.insertLeaf(leaf);
+	}
+
+	public void remove(T value)
+	{
+		Node<T> leaf = this.leaves.remove(value);
+
+		if (leaf != null)
+		{
+			this.removeLeaf(leaf);
+		}
+	}
+
+	public boolean contains(T value)
+	{
+		return this.leaves.containsKey(value);
+	}
+
+	/**
+	 * @return True if the value is in the tree with exactly this box.
+	 */
+	public boolean contains(T value, int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+	{
+		Node<T> leaf = this.leaves.get(value);
+		return leaf != null && leaf.minX == minX && leaf.minY == minY && leaf.minZ == minZ && leaf.maxX == maxX && leaf.maxY == maxY && leaf.maxZ == maxZ;
+	}
+
+	public int size()
+	{
+		return this.leaves.size();
+	}
+
+	public int getHeight()
+	{
+		return this.root != null ? this.root.height : 0;
+	}
+
+	/**
+	 * @return The values whose box holds the point.
+	 */
+	public List<T> getContaining(double x, double y, double z)
+	{
+		List<T> result = new ArrayList<T>();
+		List<Node<T>> stack = new ArrayList<Node<T>>();
+
+		if (this.root != null)
+		{
+			stack.add(this.root);
+		}
+
+		while (!stack.isEmpty())
+		{
+			Node<T> node = stack.remove(stack.size() - 1);
+
+			if (x >= node.minX && x <= node.maxX && y >= node.minY && y <= node.maxY && z >= node.minZ && z <= node.maxZ)
+			{
+				if (node.isLeaf())
+				{
+					result.add(node.value);
+				}
+				else
+				{
+					stack.add(node.left);
+					stack.add(node.right);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The values whose box overlaps the given box.
+	 */
+	public List<T> getOverlapping(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+	{
+		List<T> result = new ArrayList<T>();
+		List<Node<T>> stack = new ArrayList<Node<T>>();
+
+		if (this.root != null)
+		{
+			stack.add(this.root);
+		}
+
+		while (!stack.isEmpty())
+		{
+			Node<T> node = stack.remove(stack.size() - 1);
+
+			if (node.minX <= maxX && node.maxX >= minX && node.minY <= maxY && node.maxY >= minY && node.minZ <= maxZ && node.maxZ >= minZ)
+			{
+				if (node.isLeaf())
+				{
+					result.add(node.value);
+				}
+				else
+				{
+					stack.add(node.left);
+					stack.add(node.right);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The values whose box overlaps the box of a value in the tree, including itself.
+	 */
+	public List<T> getOverlapping(T value)
+	{
+		Node<T> leaf = this.leaves.get(value);
+
+		if (leaf == null)
+		{
+			return new ArrayList<T>();
+		}
+
+		return this.getOverlapping(leaf.minX, leaf.minY, leaf.minZ, leaf.maxX, leaf.maxY, leaf.maxZ);
+	}
+
+	public void clear()
+	{
+		this.leaves.clear();
+		this.root = null;
+	}
+
+	private void insertLeaf(Node<T> leaf)
+	{
+		if (this.root == null)
+		{
+			this.root = leaf;
+			leaf.parent = null;
+			return;
+		}
+
+		/**
+		 * Find the sibling that grows the total surface of the tree the least.
+		 */
+		Node<T> sibling = this.root;
+		Node<T> combined = new Node<T>();
+
+		while (!sibling.isLeaf())
+		{
+			long area = sibling.getArea();
+			combined.setUnion(sibling, leaf);
+			long combinedArea = combined.getArea();
+
+			long cost = 2 * combinedArea;
+			long inheritanceCost = 2 * (combinedArea - area);
+
+			long leftCost = this.getDescendCost(sibling.left, leaf, combined) + inheritanceCost;
+			long rightCost = this.getDescendCost(sibling.right, leaf, combined) + inheritanceCost;
+
+			if (cost < leftCost && cost < rightCost)
+			{
+				break;
+			}
+
+			sibling = leftCost < rightCost ? sibling.left : sibling.right;
+		}
+
+		Node<T> oldParent = sibling.parent;
+		Node<T> newParent = new Node<T>();
+		newParent.parent = oldParent;
+		newParent.setUnion(sibling, leaf);
+		newParent.height = sibling.height + 1;
+		newParent.left = sibling;
+		newParent.right = leaf;
+		sibling.parent = newParent;
+		leaf.parent = newParent;
+
+		if (oldParent != null)
+		{
+			if (oldParent.left == sibling)
+			{
+				oldParent.left = newParent;
+			}
+			else
+			{
+				oldParent.right = newParent;
+			}
+		}
+		else
+		{
+			this.root = newParent;
+		}
+
+		this.refit(leaf.parent);
+	}
+
+	private long getDescendCost(Node<T> child, Node<T> leaf, Node<T> combined)
+	{
+		combined.setUnion(child, leaf);
+
+		if (child.isLeaf())
+		{
+			return combined.getArea();
+		}
+
+		return combined.getArea() - child.getArea();
+	}
+
+	private void removeLeaf(Node<T> leaf)
+	{
+		if (leaf == this.root)
+		{
+			this.root = null;
+			return;
+		}
+
+		Node<T> parent = leaf.parent;
+		Node<T> grandParent = parent.parent;
+		Node<T> sibling = parent.left == leaf ? parent.right : parent.left;
+		leaf.parent = null;
+
+		if (grandParent != null)
+		{
+			if (grandParent.left == parent)
+			{
+				grandParent.left = sibling;
+			}
+			else
+			{
+				grandParent.right = sibling;
+			}
+
+			sibling.parent = grandParent;
+			this.refit(grandParent);
+		}
+		else
+		{
+			this.root = sibling;
+			sibling.parent = null;
+		}
+	}
+
+	/**
+	 * Rebalances and recalculates the boxes and heights from a node up to the root.
+	 */
+	private void refit(Node<T> node)
+	{
+		while (node != null)
+		{
+			node = this.balance(node);
+			node.setUnion(node.left, node.right);
+			node.height = 1 + Math.max(node.left.height, node.right.height);
+			node = node.parent;
+		}
+	}
+
+	/**
+	 * Rotates the higher child of a node up if the heights of its children differ by more than
+	 * one.
+	 *
+	 * @return The node that took the place of the given one.
+	 */
+	private Node<T> balance(Node<T> a)
+	{
+		if (a.isLeaf() || a.height < 2)
+		{
+			return a;
+		}
+
+		Node<T> b = a.left;
+		Node<T> c = a.right;
+		int balance = c.height - b.height;
+
+		if (balance > 1)
+		{
+			this.rotateUp(a, c, b, true);
+			return c;
+		}
+
+		if (balance < -1)
+		{
+			this.rotateUp(a, b, c, false);
+			return b;
+		}
+
+		return a;
+	}
+
+	/**
+	 * Makes the child the parent of the node. The higher grandchild stays under the child and the
+	 * lower one takes the child's old place under the node.
+	 */
+	private void rotateUp(Node<T> node, Node<T> child, Node<T> otherChild, boolean isRight)
+	{
+		Node<T> f = child.left;
+		Node<T> g = child.right;
+
+		child.left = node;
+		child.parent = node.parent;
+		node.parent = child;
+
+		if (child.parent != null)
+		{
+			if (child.parent.left == node)
+			{
+				child.parent.left = child;
+			}
+			else
+			{
+				child.parent.right = child;
+			}
+		}
+		else
+		{
+			this.root = child;
+		}
+
+		Node<T> high = f.height > g.height ? f : g;
+		Node<T> low = high == f ? g : f;
+
+		child.right = high;
+
+		if (isRight)
+		{
+			node.right = low;
+		}
+		else
+		{
+			node.left = low;
+		}
+
+		low.parent = node;
+		node.setUnion(otherChild, low);
+		node.height = 1 + Math.max(otherChild.height, low.height);
+		child.setUnion(node, high);
+		child.height = 1 + Math.max(node.height, high.height);
+	}
+
+	private static class Node<T>
+	{
+		int minX, minY, minZ, maxX, maxY, maxZ;
+		Node<T> parent, left, right;
+		int height;
+		T value;
+
+		boolean isLeaf()
+		{
+			return this.left == null;
+		}
+
+		void set(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+		{
+			this.minX = minX;
+			this.minY = minY;
+			this.minZ = minZ;
+			this.maxX = maxX;
+			this.maxY = maxY;
+			this.maxZ = maxZ;
+		}
+
+		void setUnion(Node<T> a, Node<T> b)
+		{
+			this.set(Math.min(a.minX, b.minX), Math.min(a.minY, b.minY), Math.min(a.minZ, b.minZ), Math.max(a.maxX, b.maxX), Math.max(a.maxY, b.maxY), Math.max(a.maxZ, b.maxZ));
+		}
+
+		/**
+		 * @return Half the surface area of the box, used as the cost of a node.
+		 */
+		long getArea()
+		{
+			long x = (long) this.maxX - this.minX + 1;
+			long y = (long) this.maxY - this.minY + 1;
+			long z = (long) this.maxZ - this.minZ + 1;
+			return x * y + y * z + z * x;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package mffs.base;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache keyed by structural keys such as mode IDs. Each entry has a weight, one by
+ * default, and when the total weight is over the limit the least recently used entries are
+ * evicted. Hits and misses are counted so the cache can be tuned.
+ *
+ * @author Calclavia
+ *
+ */
+public class KeyedCache<K, V>
+{
+	private final long maxWeight;
+	private final LinkedHashMap<K, V> entries = new LinkedHashMap<K, V>(16, 0.75f, true);
+	private final Map<K, Long> weights = new HashMap<K, Long>();
+	private long totalWeight = 0;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	public KeyedCache(long maxWeight)
+	{
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * @return The weight of a value counted against the limit.
+	 */
+	protected long weigh(V value)
+	{
+		return 1;
+	}
+
+	/**
+	 * @return The cached value, or null if there is none. Counts as a hit or a miss.
+	 */
+	public synchronized V get(K key)
+	{
+		V value = this.entries.get(key);
+
+		if (value != null)
+		{
+			this.hits++;
+		}
+		else
+		{
+			this.misses++;
+		}
+
+		return value;
+	}
+
+	/**
+	 * Caches a value, evicting the least recently used entries if needed. The value itself is
+	 * always kept, even if it is heavier than the limit on its own.
+	 */
+	public synchronized void put(K key, V value)
+	{
+		this.remove(key);
+
+		long weight = this.weigh(value);
+		this.entries.put(key, value);
+		this.weights.put(key, weight);
+		this.totalWeight += weight;
+
+		Iterator<Map.Entry<K, V>> it = this.entries.entrySet().iterator();
+
+		while (this.totalWeight > this.maxWeight && it.hasNext())
+		{
+			K eldest = it.next().getKey();
+
+			if (eldest != key && !eldest.equals(key))
+			{
+				it.remove();
+				this.totalWeight -= this.weights.remove(eldest);
+				this.evictions++;
+			}
+		}
+	}
+
+	public synchronized void remove(K key)
+	{
+		if (this.entries.remove(key) != null)
+		{
+			this.totalWeight -= this.weights.remove(key);
+		}
+	}
+
+	public synchronized void clear()
+	{
+		this.entries.clear();
+		this.weights.clear();
+		this.totalWeight = 0;
+	}
+
+	public synchronized int size()
+	{
+		return this.entries.size();
+	}
+
+	public synchronized long getWeight()
+	{
+		return this.totalWeight;
+	}
+
+	public long getMaxWeight()
+	{
+		return this.maxWeight;
+	}
+
+	public synchronized long getHits()
+	{
+		return this.hits;
+	}
+
+	public synchronized long getMisses()
+	{
+		return this.misses;
+	}
+
+	public synchronized long getEvictions()
+	{
+		return this.evictions;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return this.getClass().getSimpleName() + "[size=" + this.entries.size() + ", weight=" + this.totalWeight + "/" + this.maxWeight + ", hits=" + this.hits + ", misses=" + this.misses + ", evictions=" + this.evictions + "]";
+	}
+}
@@ -0,0 +1,311 @@
+package mffs.base;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import mffs.api.modules.IModule;
+import mffs.api.modules.ModuleSlotGroup;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.ItemStack;
+
+/**
+ * A snapshot of the modules in an inventory. Built once when the inventory changes so that module
+ * lookups are plain array reads instead of inventory scans.
+ *
+ * Modules are numbered in the order they are first found. Each slot stores the number of its
+ * module and its stack size, and the total of each module over the module slots is kept as well.
+ * Counts of slot groups are kept in a matrix of group ID by module number. The matrix has a row for
+ * every group that exists when the summary is built, all filled in the constructor.
+ *
+ * The slot contents are copied when the summary is built, so a summary never changes after it is
+ * published and can be read from the calculation threads.
+ *
+ * @author Calclavia
+ *
+ */
+public class ModuleSummary
+{
+	/**
+	 * The stack in each slot when the summary was built.
+	 */
+	private final ItemStack[] slotStacks;
+
+	/**
+	 * The distinct modules in the inventory.
+	 */
+	private final IModule[] modules;
+
+	/**
+	 * The module number in each slot, or -1 if the slot has no module.
+	 */
+	private final int[] slotModule;
+	private final int[] slotCount;
+
+	/**
+	 * The total of each module over the module slots.
+	 */
+	private final int[] totals;
+
+	private final Set<ItemStack> moduleStacks;
+	private final Set<IModule> moduleSet;
+
+	/**
+	 * Module counts, stacks and modules of each slot group, indexed by group ID.
+	 */
+	private final int[][] groupCounts;
+	private final Set<ItemStack>[] groupStacks;
+	private final Set<IModule>[] groupModules;
+
+	@SuppressWarnings("unchecked")
+	public ModuleSummary(IInventory inventory, int startModuleIndex, int endModuleIndex)
+	{
+		int size = inventory.getSizeInventory();
+		IModule[] found = new IModule[size];
+		int moduleCount = 0;
+
+		this.slotStacks = new ItemStack[size];
+		this.slotModule = new int[size];
+		this.slotCount = new int[size];
+		Arrays.fill(this.slotModule, -1);
+
+		for (int slotID = 0; slotID < size; slotID++)
+		{
+			ItemStack itemStack = inventory.getStackInSlot(slotID);
+
+			if (itemStack != null && itemStack.getItem() instanceof IModule)
+			{
+				IModule module = (IModule) itemStack.getItem();
+				int index = indexOf(found, moduleCount, module);
+
+				if (index < 0)
+				{
+					index = moduleCount;
+					found[moduleCount++] = module;
+				}
+
+				this.slotStacks[slotID] = itemStack;
+				this.slotModule[slotID] = index;
+				this.slotCount[slotID] = itemStack.stackSize;
+			}
+		}
+
+		this.modules = Arrays.copyOf(found, moduleCount);
+		this.totals = new int[moduleCount];
+
+		Set<ItemStack> moduleStacks = new HashSet<ItemStack>();
+		Set<IModule> moduleSet = new HashSet<IModule>();
+
+		for (int slotID = Math.max(startModuleIndex, 0); slotID <= endModuleIndex && slotID < size; slotID++)
+		{
+			if (this.slotModule[slotID] >= 0)
+			{
+				this.totals[this.slotModule[slotID]] += this.slotCount[slotID];
+				moduleStacks.add(this.slotStacks[slotID]);
+				moduleSet.add(this.modules[this.slotModule[slotID]]);
+			}
+		}
+
+		this.moduleStacks = Collections.unmodifiableSet(moduleStacks);
+		this.moduleSet = Collections.unmodifiableSet(moduleSet);
+
+		ModuleSlotGroup[] groups = ModuleSlotGroup.getGroups();
+		this.groupCounts = new int[groups.length][];
+		this.groupStacks = new Set[groups.length];
+		this.groupModules = new Set[groups.length];
+
+		for (ModuleSlotGroup group : groups)
+		{
+			int id = group.getID();
+			Set<ItemStack> groupStacks = new HashSet<ItemStack>();
+			Set<IModule> groupModules = new HashSet<IModule>();
+			this.groupCounts[id] = new int[moduleCount];
+			this.collectGroup(group, this.groupCounts[id], groupStacks, groupModules);
+			this.groupStacks[id] = Collections.unmodifiableSet(groupStacks);
+			this.groupModules[id] = Collections.unmodifiableSet(groupModules);
+		}
+	}
+
+	private static int indexOf(IModule[] modules, int count, IModule module)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			if (modules[i] == module)
+			{
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @return The number of a module in this summary, or -1 if the inventory does not have it.
+	 */
+	public int getModuleIndex(IModule module)
+	{
+		return indexOf(this.modules, this.modules.length, module);
+	}
+
+	/**
+	 * @return The amount of a module in the given slots, or in all module slots if no slots are
+	 * given.
+	 */
+	public int getModuleCount(IModule module, int... slots)
+	{
+		int index = this.getModuleIndex(module);
+
+		if (index < 0)
+		{
+			return 0;
+		}
+
+		if (slots == null || slots.length <= 0)
+		{
+			return this.totals[index];
+		}
+
+		int count = 0;
+
+		for (int slotID : slots)
+		{
+			if (slotID >= 0 && slotID < this.slotModule.length && this.slotModule[slotID] == index)
+			{
+				count += this.slotCount[slotID];
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * @return An unmodifiable set of the module stacks in the given slots, or in all module slots
+	 * if no slots are given.
+	 */
+	public Set<ItemStack> getModuleStacks(int... slots)
+	{
+		if (slots == null || slots.length <= 0)
+		{
+			return this.moduleStacks;
+		}
+
+		Set<ItemStack> moduleStacks = new HashSet<ItemStack>();
+
+		for (int slotID : slots)
+		{
+			if (slotID >= 0 && slotID < this.slotModule.length && this.slotModule[slotID] >= 0)
+			{
+				moduleStacks.add(this.slotStacks[slotID]);
+			}
+		}
+
+		return Collections.unmodifiableSet(moduleStacks);
+	}
+
+	/**
+	 * @return An unmodifiable set of the modules in the given slots, or in all module slots if no
+	 * slots are given.
+	 */
+	public Set<IModule> getModules(int... slots)
+	{
+		if (slots == null || slots.length <= 0)
+		{
+			return this.moduleSet;
+		}
+
+		Set<IModule> moduleSet = new HashSet<IModule>();
+
+		for (int slotID : slots)
+		{
+			if (slotID >= 0 && slotID < this.slotModule.length && this.slotModule[slotID] >= 0)
+			{
+				moduleSet.add(this.modules[this.slotModule[slotID]]);
+			}
+		}
+
+		return Collections.unmodifiableSet(moduleSet);
+	}
+
+	/**
+	 * @return The amount of a module in a slot group.
+	 */
+	public int getModuleCount(IModule module, ModuleSlotGroup group)
+	{
+		int index = this.getModuleIndex(module);
+
+		if (index < 0)
+		{
+			return 0;
+		}
+
+		if (group.getID() < this.groupCounts.length)
+		{
+			return this.groupCounts[group.getID()][index];
+		}
+
+		int[] counts = new int[this.modules.length];
+		this.collectGroup(group, counts, null, null);
+		return counts[index];
+	}
+
+	/**
+	 * @return An unmodifiable set of the module stacks in a slot group.
+	 */
+	public Set<ItemStack> getModuleStacks(ModuleSlotGroup group)
+	{
+		if (group.getID() < this.groupStacks.length)
+		{
+			return this.groupStacks[group.getID()];
+		}
+
+		Set<ItemStack> moduleStacks = new HashSet<ItemStack>();
+		this.collectGroup(group, null, moduleStacks, null);
+		return Collections.unmodifiableSet(moduleStacks);
+	}
+
+	/**
+	 * @return An unmodifiable set of the modules in a slot group.
+	 */
+	public Set<IModule> getModules(ModuleSlotGroup group)
+	{
+		if (group.getID() < this.groupModules.length)
+		{
+			return this.groupModules[group.getID()];
+		}
+
+		Set<IModule> moduleSet = new HashSet<IModule>();
+		this.collectGroup(group, null, null, moduleSet);
+		return Collections.unmodifiableSet(moduleSet);
+	}
+
+	/**
+	 * Adds the contents of a slot group to whichever of the given outputs are not null. Used to
+	 * fill the matrix, and for groups created after this summary was built.
+	 */
+	private void collectGroup(ModuleSlotGroup group, int[] counts, Set<ItemStack> moduleStacks, Set<IModule> moduleSet)
+	{
+		for (int i = 0; i < group.size(); i++)
+		{
+			int slotID = group.getSlot(i);
+
+			if (slotID >= 0 && slotID < this.slotModule.length && this.slotModule[slotID] >= 0)
+			{
+				if (counts != null)
+				{
+					counts[this.slotModule[slotID]] += this.slotCount[slotID];
+				}
+
+				if (moduleStacks != null)
+				{
+					moduleStacks.add(this.slotStacks[slotID]);
+				}
+
+				if (moduleSet != null)
+				{
+					moduleSet.add(this.modules[this.slotModule[slotID]]);
+				}
+			}
+		}
+	}
+}
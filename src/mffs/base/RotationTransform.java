@@ -0,0 +1,190 @@
+package mffs.base;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import mffs.api.IPositionSink;
+import mffs.api.IProjector;
+import universalelectricity.core.vector.Vector3;
+
+/**
+ * The rotation of a field by its yaw and pitch, in degrees. It rotates the same way as
+ * CalculationHelper.rotateByAngle with no roll, but the matrix is only calculated once for each
+ * pair of angles. Rotations by multiples of 90 degrees use exact sines and cosines, so block
+ * positions are rotated onto block positions without rounding errors.
+ *
+ * @author Calclavia
+ *
+ */
+public class RotationTransform
+{
+	public static final RotationTransform IDENTITY = new RotationTransform(0, 0);
+
+	/**
+	 * Angles are whole degrees, so there are at most 360 * 360 transforms.
+	 */
+	private static final ConcurrentHashMap<Integer, RotationTransform> TRANSFORMS = new ConcurrentHashMap<Integer, RotationTransform>();
+
+	private final int yaw;
+	private final int pitch;
+
+	/**
+	 * The rows of the matrix, in the order x, y, z.
+	 */
+	private final double[] matrix = new double[9];
+
+	private RotationTransform(int yaw, int pitch)
+	{
+		this.yaw = yaw;
+		this.pitch = pitch;
+
+		if (yaw % 90 == 0 && pitch % 90 == 0)
+		{
+			this.setMatrix(cos90(yaw), sin90(yaw), cos90(pitch), sin90(pitch));
+		}
+		else
+		{
+			double yawRadians = Math.toRadians(yaw);
+			double pitchRadians = Math.toRadians(pitch);
+			this.setMatrix(Math.cos(yawRadians), Math.sin(yawRadians), Math.cos(pitchRadians), Math.sin(pitchRadians));
+		}
+	}
+
+	private void setMatrix(double cosYaw, double sinYaw, double cosPitch, double sinPitch)
+	{
+		this.matrix[0] = cosYaw * cosPitch;
+		this.matrix[1] = cosYaw * sinPitch;
+		this.matrix[2] = -sinYaw;
+		this.matrix[3] = -sinPitch;
+		this.matrix[4] = cosPitch;
+		this.matrix[5] = 0;
+		this.matrix[6] = sinYaw * cosPitch;
+		this.matrix[7] = sinYaw * sinPitch;
+		this.matrix[8] = cosYaw;
+	}
+
+	public static RotationTransform get(int yaw, int pitch)
+	{
+		yaw = normalize(yaw);
+		pitch = normalize(pitch);
+
+		if (yaw == 0 && pitch == 0)
+		{
+			return IDENTITY;
+		}
+
+		Integer key = yaw * 360 + pitch;
+		RotationTransform transform = TRANSFORMS.get(key);
+
+		if (transform == null)
+		{
+			transform = new RotationTransform(yaw, pitch);
+			RotationTransform existing = TRANSFORMS.putIfAbsent(key, transform);
+
+			if (existing != null)
+			{
+				transform = existing;
+			}
+		}
+
+		return transform;
+	}
+
+	/**
+	 * @return The rotation of a projector's field.
+	 */
+	public static RotationTransform get(IProjector projector)
+	{
+		return get(projector.getRotationYaw(), projector.getRotationPitch());
+	}
+
+	public boolean isIdentity()
+	{
+		return this.yaw == 0 && this.pitch == 0;
+	}
+
+	/**
+	 * @return True if the rotation is by multiples of 90 degrees, so it rotates block positions
+	 * onto block positions.
+	 */
+	public boolean isAxisAligned()
+	{
+		return this.yaw % 90 == 0 && this.pitch % 90 == 0;
+	}
+
+	/**
+	 * @return A sink that rotates block positions relative to the field center into the field
+	 * before writing them to the given sink. Only exact if the rotation is axis aligned.
+	 */
+	public IPositionSink transform(final IPositionSink sink)
+	{
+		final double[] m = this.matrix;
+
+		return new IPositionSink()
+		{
+			@Override
+			public boolean add(int x, int y, int z)
+			{
+				return sink.add((int) Math.round(x * m[0] + y * m[1] + z * m[2]), (int) Math.round(x * m[3] + y * m[4] + z * m[5]), (int) Math.round(x * m[6] + y * m[7] + z * m[8]));
+			}
+		};
+	}
+
+	/**
+	 * Rotates a position relative to the field center into the field.
+	 */
+	public Vector3 transform(Vector3 position)
+	{
+		double x = position.x, y = position.y, z = position.z;
+		double[] m = this.matrix;
+		position.x = x * m[0] + y * m[1] + z * m[2];
+		position.y = x * m[3] + y * m[4] + z * m[5];
+		position.z = x * m[6] + y * m[7] + z * m[8];
+		return position;
+	}
+
+	/**
+	 * Rotates a position in the field back to where it is relative to the unrotated field center.
+	 * The matrix is a rotation, so its inverse is its transpose.
+	 */
+	public Vector3 inverseTransform(Vector3 position)
+	{
+		double x = position.x, y = position.y, z = position.z;
+		double[] m = this.matrix;
+		position.x = x * m[0] + y * m[3] + z * m[6];
+		position.y = x * m[1] + y * m[4] + z * m[7];
+		position.z = x * m[2] + y * m[5] + z * m[8];
+		return position;
+	}
+
+	private static int normalize(int angle)
+	{
+		angle %= 360;
+		return angle < 0 ? angle + 360 : angle;
+	}
+
+	private static int cos90(int angle)
+	{
+		switch (angle)
+		{
+			case 0:
+				return 1;
+			case 180:
+				return -1;
+			default:
+				return 0;
+		}
+	}
+
+	private static int sin90(int angle)
+	{
+		switch (angle)
+		{
+			case 90:
+				return 1;
+			case 270:
+				return -1;
+			default:
+				return 0;
+		}
+	}
+}
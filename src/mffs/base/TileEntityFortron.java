@@ -10,6 +10,7 @@ import mffs.TransferMode;
 import mffs.api.card.ICard;
 import mffs.api.fortron.IFortronFrequency;
 import mffs.fortron.FortronHelper;
+import mffs.fortron.FortronTank;
 import mffs.fortron.FrequencyGrid;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
@@ -18,7 +19,6 @@ import net.minecraftforge.liquids.ILiquidTank;
 import net.minecraftforge.liquids.ITankContainer;
 import net.minecraftforge.liquids.LiquidContainerRegistry;
 import net.minecraftforge.liquids.LiquidStack;
-import net.minecraftforge.liquids.LiquidTank;
 import universalelectricity.core.vector.Vector3;
 import universalelectricity.prefab.network.PacketManager;
 
@@ -32,7 +32,7 @@ import com.google.common.io.ByteArrayDataInput;
  */
 public abstract class TileEntityFortron extends TileEntityFrequency implements ITankContainer, IFortronFrequency
 {
-	protected LiquidTank fortronTank = new LiquidTank(FortronHelper.LIQUID_FORTRON.copy(), LiquidContainerRegistry.BUCKET_VOLUME, this);
+	protected FortronTank fortronTank = new FortronTank(LiquidContainerRegistry.BUCKET_VOLUME, this);
 
 	@Override
 	public void updateEntity()
@@ -64,7 +64,7 @@ public abstract class TileEntityFortron extends TileEntityFrequency implements I
 	{
 		List objects = new LinkedList();
 		objects.addAll(super.getPacketUpdate());
-		objects.add(FortronHelper.getAmount(this.fortronTank.getLiquid()));
+		objects.add(this.fortronTank.getAmount());
 		return objects;
 	}
 
@@ -75,7 +75,7 @@ public abstract class TileEntityFortron extends TileEntityFrequency implements I
 
 		if (packetID == TilePacketType.DESCRIPTION.ordinal())
 		{
-			this.fortronTank.setLiquid(FortronHelper.getFortron(dataStream.readInt()));
+			this.fortronTank.setAmount(dataStream.readInt());
 		}
 	}
 
@@ -86,7 +86,7 @@ public abstract class TileEntityFortron extends TileEntityFrequency implements I
 	public void readFromNBT(NBTTagCompound nbt)
 	{
 		super.readFromNBT(nbt);
-		this.fortronTank.setLiquid(LiquidStack.loadLiquidStackFromNBT(nbt.getCompoundTag("fortron")));
+		this.fortronTank.setAmount(FortronHelper.getAmount(LiquidStack.loadLiquidStackFromNBT(nbt.getCompoundTag("fortron"))));
 	}
 
 	@Override
@@ -94,12 +94,10 @@ public abstract class TileEntityFortron extends TileEntityFrequency implements I
 	{
 		super.writeToNBT(nbt);
 
-		if (this.fortronTank.getLiquid() != null)
-		{
-			NBTTagCompound fortronCompound = new NBTTagCompound();
-			this.fortronTank.getLiquid().writeToNBT(fortronCompound);
-			nbt.setTag("fortron", fortronCompound);
-		}
+		// Saved as a LiquidStack to stay compatible with existing worlds.
+		NBTTagCompound fortronCompound = new NBTTagCompound();
+		this.fortronTank.getLiquid().writeToNBT(fortronCompound);
+		nbt.setTag("fortron", fortronCompound);
 
 	}
 
@@ -109,12 +107,7 @@ public abstract class TileEntityFortron extends TileEntityFrequency implements I
 	@Override
 	public int fill(ForgeDirection from, LiquidStack resource, boolean doFill)
 	{
-		if (resource.isLiquidEqual(FortronHelper.LIQUID_FORTRON))
-		{
-			return this.fortronTank.fill(resource, doFill);
-		}
-
-		return 0;
+		return this.fortronTank.fill(resource, doFill);
 	}
 
 	@Override
@@ -155,13 +148,13 @@ public abstract class TileEntityFortron extends TileEntityFrequency implements I
 	@Override
 	public void setFortronEnergy(int joules)
 	{
-		this.fortronTank.setLiquid(FortronHelper.getFortron(joules));
+		this.fortronTank.setAmount(joules);
 	}
 
 	@Override
 	public int getFortronEnergy()
 	{
-		return FortronHelper.getAmount(this.fortronTank);
+		return this.fortronTank.getAmount();
 	}
 
 	@Override
@@ -170,16 +163,25 @@ public abstract class TileEntityFortron extends TileEntityFrequency implements I
 		return this.fortronTank.getCapacity();
 	}
 
+	/**
+	 * Adds or removes Fortron without clamping. The amount must already be within what the tank
+	 * can take or give.
+	 */
+	public void addFortronEnergy(int joules)
+	{
+		this.fortronTank.setAmount(this.fortronTank.getAmount() + joules);
+	}
+
 	@Override
 	public int requestFortron(int joules, boolean doUse)
 	{
-		return FortronHelper.getAmount(this.fortronTank.drain(joules, doUse));
+		return this.fortronTank.drainAmount(joules, doUse);
 	}
 
 	@Override
 	public int provideFortron(int joules, boolean doUse)
 	{
-		return this.fortronTank.fill(FortronHelper.getFortron(joules), doUse);
+		return this.fortronTank.fillAmount(joules, doUse);
 	}
 
 	/**
@@ -24,10 +24,10 @@ public abstract class TileEntityFrequency extends TileEntityInventory implements
 	private int frequency;
 
 	@Override
-	public void initiate()
+	public void validate()
 	{
+		super.validate();
 		FrequencyGrid.instance().register(this);
-		super.initiate();
 	}
 
 	@Override
@@ -37,6 +37,13 @@ public abstract class TileEntityFrequency extends TileEntityInventory implements
 		super.invalidate();
 	}
 
+	@Override
+	public void onChunkUnload()
+	{
+		FrequencyGrid.instance().unregister(this);
+		super.onChunkUnload();
+	}
+
 	@Override
 	public List getPacketUpdate()
 	{
@@ -84,7 +91,13 @@ public abstract class TileEntityFrequency extends TileEntityInventory implements
 	@Override
 	public void setFrequency(int frequency)
 	{
+		int oldFrequency = this.frequency;
 		this.frequency = frequency;
+
+		if (oldFrequency != frequency && this.worldObj != null)
+		{
+			FrequencyGrid.instance().onFrequencyChanged(this, oldFrequency, frequency);
+		}
 	}
 
 	/**
@@ -1,8 +1,6 @@
 package mffs.base;
 
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Set;
 
 import mffs.ModularForceFieldSystem;
@@ -10,15 +8,17 @@ import mffs.Settings;
 import mffs.api.ICache;
 import mffs.api.modules.IModule;
 import mffs.api.modules.IModuleAcceptor;
+import mffs.api.modules.ModuleSlotGroup;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
 import net.minecraftforge.liquids.LiquidContainerRegistry;
 
 public abstract class TileEntityModuleAcceptor extends TileEntityFortron implements IModuleAcceptor, ICache
 {
 	/**
-	 * Caching for the module stack data. This is used to reduce calculation time. Cache gets reset
-	 * when inventory changes.
+	 * Caching for other data of the machine, kept for ICache. Module data is held by the module
+	 * summary instead. Cache gets reset when inventory changes.
 	 */
 	public final HashMap<String, Object> cache = new HashMap<String, Object>();
 
@@ -33,258 +33,104 @@ public abstract class TileEntityModuleAcceptor extends TileEntityFortron impleme
 		}
 	}
 
-	@Override
-	public ItemStack getModule(IModule module)
-	{
-		String cacheID = "getModule_" + module.hashCode();
-
-		if (Settings.USE_CACHE)
-		{
-			if (this.cache.containsKey(cacheID))
-			{
-				if (this.cache.get(cacheID) instanceof ItemStack)
-				{
-					return (ItemStack) this.cache.get(cacheID);
-				}
-			}
-		}
+	/**
+	 * The modules in this machine's inventory. A new summary is built and published whenever the
+	 * inventory changes, so readers on other threads always see a complete one.
+	 */
+	private volatile ModuleSummary moduleSummary = new ModuleSummary(this, this.startModuleIndex, this.endModuleIndex);
 
-		ItemStack returnStack = new ItemStack((Item) module, 0);
+	/**
+	 * The Fortron cost of the current modules, or -1 if it has not been calculated.
+	 */
+	private volatile int fortronCost = -1;
 
-		for (ItemStack comparedModule : getModuleStacks())
+	/**
+	 * @return The module summary of the current inventory.
+	 */
+	public ModuleSummary getModuleSummary()
+	{
+		if (!Settings.USE_CACHE)
 		{
-			if (comparedModule.getItem() == module)
-			{
-				returnStack.stackSize += comparedModule.stackSize;
-			}
+			return new ModuleSummary(this, this.startModuleIndex, this.endModuleIndex);
 		}
 
-		if (Settings.USE_CACHE)
-		{
-			this.cache.put(cacheID, returnStack.copy());
-		}
+		return this.moduleSummary;
+	}
 
-		return returnStack;
+	@Override
+	public ItemStack getModule(IModule module)
+	{
+		return new ItemStack((Item) module, this.getModuleSummary().getModuleCount(module));
 	}
 
 	@Override
 	public int getModuleCount(IModule module, int... slots)
 	{
-		int count = 0;
-
 		if (module != null)
 		{
-			String cacheID = "getModuleCount_" + module.hashCode();
-
-			if (slots != null)
-			{
-				cacheID += "_" + Arrays.hashCode(slots);
-			}
-
-			if (Settings.USE_CACHE)
-			{
-				if (this.cache.containsKey(cacheID))
-				{
-					if (this.cache.get(cacheID) instanceof Integer)
-					{
-						return (Integer) this.cache.get(cacheID);
-					}
-				}
-			}
-
-			if (slots != null && slots.length > 0)
-			{
-				for (int slotID : slots)
-				{
-					if (this.getStackInSlot(slotID) != null)
-					{
-						if (this.getStackInSlot(slotID).getItem() == module)
-						{
-							count += this.getStackInSlot(slotID).stackSize;
-						}
-					}
-				}
-			}
-			else
-			{
-				for (ItemStack itemStack : getModuleStacks())
-				{
-					if (itemStack.getItem() == module)
-					{
-						count += itemStack.stackSize;
-					}
-				}
-			}
-
-			if (Settings.USE_CACHE)
-			{
-				this.cache.put(cacheID, count);
-			}
+			return this.getModuleSummary().getModuleCount(module, slots);
 		}
 
-		return count;
+		return 0;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Set<ItemStack> getModuleStacks(int... slots)
 	{
-		String cacheID = "getModuleStacks_";
-
-		if (slots != null)
-		{
-			cacheID += Arrays.hashCode(slots);
-		}
-
-		if (Settings.USE_CACHE)
-		{
-			if (this.cache.containsKey(cacheID))
-			{
-				if (this.cache.get(cacheID) instanceof Set)
-				{
-					return (Set<ItemStack>) this.cache.get(cacheID);
-				}
-			}
-		}
-
-		Set<ItemStack> modules = new HashSet<ItemStack>();
-
-		if (slots == null || slots.length <= 0)
-		{
-			for (int slotID = startModuleIndex; slotID <= endModuleIndex; slotID++)
-			{
-				ItemStack itemStack = this.getStackInSlot(slotID);
-
-				if (itemStack != null)
-				{
-					if (itemStack.getItem() instanceof IModule)
-					{
-						modules.add(itemStack);
-					}
-				}
-			}
-		}
-		else
-		{
-			for (int slotID : slots)
-			{
-				ItemStack itemStack = this.getStackInSlot(slotID);
-
-				if (itemStack != null)
-				{
-					if (itemStack.getItem() instanceof IModule)
-					{
-						modules.add(itemStack);
-					}
-				}
-			}
-		}
-
-		if (Settings.USE_CACHE)
-		{
-			this.cache.put(cacheID, modules);
-		}
-
-		return modules;
+		return this.getModuleSummary().getModuleStacks(slots);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public Set<IModule> getModules(int... slots)
 	{
-		String cacheID = "getModules_";
-
-		if (slots != null)
-		{
-			cacheID += Arrays.hashCode(slots);
-		}
-
-		if (Settings.USE_CACHE)
-		{
-			if (this.cache.containsKey(cacheID))
-			{
-				if (this.cache.get(cacheID) instanceof Set)
-				{
-					return (Set<IModule>) this.cache.get(cacheID);
-				}
-			}
-		}
-
-		Set<IModule> modules = new HashSet<IModule>();
+		return this.getModuleSummary().getModules(slots);
+	}
 
-		if (slots == null || slots.length <= 0)
+	@Override
+	public int getModuleCount(IModule module, ModuleSlotGroup group)
+	{
+		if (module != null)
 		{
-			for (int slotID = startModuleIndex; slotID <= endModuleIndex; slotID++)
-			{
-				ItemStack itemStack = this.getStackInSlot(slotID);
-
-				if (itemStack != null)
-				{
-					if (itemStack.getItem() instanceof IModule)
-					{
-						modules.add((IModule) itemStack.getItem());
-					}
-				}
-			}
+			return this.getModuleSummary().getModuleCount(module, group);
 		}
-		else
-		{
-			for (int slotID : slots)
-			{
-				ItemStack itemStack = this.getStackInSlot(slotID);
 
-				if (itemStack != null)
-				{
-					if (itemStack.getItem() instanceof IModule)
-					{
-						modules.add((IModule) itemStack.getItem());
-					}
-				}
-			}
-		}
+		return 0;
+	}
 
-		if (Settings.USE_CACHE)
-		{
-			this.cache.put(cacheID, modules);
-		}
+	@Override
+	public Set<ItemStack> getModuleStacks(ModuleSlotGroup group)
+	{
+		return this.getModuleSummary().getModuleStacks(group);
+	}
 
-		return modules;
+	@Override
+	public Set<IModule> getModules(ModuleSlotGroup group)
+	{
+		return this.getModuleSummary().getModules(group);
 	}
 
 	@Override
 	public int getFortronCost()
 	{
-		String cacheID = "getFortronCost";
+		int fortronCost = this.fortronCost;
 
-		if (Settings.USE_CACHE)
+		if (fortronCost < 0 || !Settings.USE_CACHE)
 		{
-			if (this.cache.containsKey(cacheID))
+			float cost = 0;
+
+			for (ItemStack itemStack : this.getModuleSummary().getModuleStacks())
 			{
-				if (this.cache.get(cacheID) instanceof Integer)
+				if (itemStack != null)
 				{
-					return (Integer) this.cache.get(cacheID);
+					cost += itemStack.stackSize * ((IModule) itemStack.getItem()).getFortronCost(this.getAmplifier());
 				}
 			}
-		}
-
-		float cost = 0;
-
-		for (ItemStack itemStack : this.getModuleStacks())
-		{
-			if (itemStack != null)
-			{
-				cost += itemStack.stackSize * ((IModule) itemStack.getItem()).getFortronCost(this.getAmplifier());
-			}
-		}
-
-		int result = Math.round(cost);
 
-		if (Settings.USE_CACHE)
-		{
-			this.cache.put(cacheID, result);
+			fortronCost = Math.round(cost);
+			this.fortronCost = fortronCost;
 		}
 
-		return result;
+		return fortronCost;
 	}
 
 	protected float getAmplifier()
@@ -296,12 +142,19 @@ public abstract class TileEntityModuleAcceptor extends TileEntityFortron impleme
 	public void onInventoryChanged()
 	{
 		super.onInventoryChanged();
-		this.fortronTank.setCapacity((this.getModuleCount(ModularForceFieldSystem.itemModuleCapacity) * 10 + 500) * LiquidContainerRegistry.BUCKET_VOLUME);
 
 		/**
-		 * Clears the cache.
+		 * Clears the cache before reading the new module count.
 		 */
 		this.clearCache();
+		this.fortronTank.setCapacity((this.getModuleCount(ModularForceFieldSystem.itemModuleCapacity) * 10 + 500) * LiquidContainerRegistry.BUCKET_VOLUME);
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt)
+	{
+		super.readFromNBT(nbt);
+		this.clearCache();
 	}
 
 	@Override
@@ -319,6 +172,8 @@ public abstract class TileEntityModuleAcceptor extends TileEntityFortron impleme
 	@Override
 	public void clearCache()
 	{
+		this.moduleSummary = new ModuleSummary(this, this.startModuleIndex, this.endModuleIndex);
+		this.fortronCost = -1;
 		this.cache.clear();
 	}
 }
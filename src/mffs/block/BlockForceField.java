@@ -101,7 +101,7 @@ public class BlockForceField extends BlockBase implements IForceFieldBlock, IPar
 		{
 			if (((TileEntityForceField) tileEntity).getProjector() != null)
 			{
-				for (ItemStack moduleStack : ((TileEntityForceField) tileEntity).getProjector().getModuleStacks(((TileEntityForceField) tileEntity).getProjector().getModuleSlots()))
+				for (ItemStack moduleStack : ((TileEntityForceField) tileEntity).getProjector().getModuleStacks(((TileEntityForceField) tileEntity).getProjector().getModuleSlotGroup()))
 				{
 					if (((IModule) moduleStack.getItem()).onCollideWithForceField(world, x, y, z, entityPlayer, moduleStack))
 					{
@@ -156,7 +156,7 @@ public class BlockForceField extends BlockBase implements IForceFieldBlock, IPar
 		{
 			if (this.getProjector(world, x, y, z) != null)
 			{
-				for (ItemStack moduleStack : ((TileEntityForceField) tileEntity).getProjector().getModuleStacks(((TileEntityForceField) tileEntity).getProjector().getModuleSlots()))
+				for (ItemStack moduleStack : ((TileEntityForceField) tileEntity).getProjector().getModuleStacks(((TileEntityForceField) tileEntity).getProjector().getModuleSlotGroup()))
 				{
 					if (((IModule) moduleStack.getItem()).onCollideWithForceField(world, x, y, z, entity, moduleStack))
 					{
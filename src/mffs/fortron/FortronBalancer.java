@@ -0,0 +1,385 @@
+package mffs.fortron;
+
+import java.util.Collection;
+
+import mffs.ModularForceFieldSystem;
+import mffs.TransferMode;
+import mffs.api.fortron.IFortronFrequency;
+import mffs.api.modules.IModuleAcceptor;
+import mffs.base.TileEntityFortron;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+import universalelectricity.core.vector.Vector3;
+
+/**
+ * Balances Fortron between machines. The energy of all machines is read once into primitive
+ * arrays, every transfer is worked out on those arrays and only the net result is written back to
+ * each machine.
+ *
+ * The results are the same as transferring to each machine one after another through
+ * requestFortron and provideFortron, which is how Fortron used to be transferred.
+ *
+ * @author Calclavia
+ *
+ */
+public class FortronBalancer
+{
+	private static final ThreadLocal<FortronBalancer> WORKSPACE = new ThreadLocal<FortronBalancer>()
+	{
+		@Override
+		protected FortronBalancer initialValue()
+		{
+			return new FortronBalancer();
+		}
+	};
+
+	private IFortronFrequency[] machines = new IFortronFrequency[16];
+	private int[] energy = new int[16];
+	private int[] capacity = new int[16];
+
+	/**
+	 * The energy of each machine when it was added, to work out what to write back.
+	 */
+	private int[] initialEnergy = new int[16];
+
+	private int count;
+
+	/**
+	 * Indices of the machines a single transferer balances with.
+	 */
+	private int[] group = new int[16];
+
+	private boolean isBalancing = false;
+
+	public static void transferFortron(IFortronFrequency transferer, Collection<IFortronFrequency> frequencyTiles, TransferMode transferMode, int limit)
+	{
+		if (transferer != null && frequencyTiles.size() > 1)
+		{
+			FortronBalancer balancer = get();
+			balancer.begin();
+
+			try
+			{
+				int transfererIndex = balancer.add(transferer);
+				int[] group = balancer.group(frequencyTiles.size());
+				int groupSize = 0;
+
+				for (IFortronFrequency machine : frequencyTiles)
+				{
+					if (machine != null)
+					{
+						group[groupSize++] = machine == transferer ? transfererIndex : balancer.add(machine);
+					}
+				}
+
+				balancer.balance(transfererIndex, group, groupSize, frequencyTiles.size(), transferMode, limit);
+				balancer.apply();
+			}
+			finally
+			{
+				balancer.end();
+			}
+		}
+	}
+
+	/**
+	 * @return A balancer to be used by the current thread, or a new one if the thread's balancer
+	 * is busy, as machines of other mods might transfer Fortron while being balanced. Must be used
+	 * between begin() and end().
+	 */
+	static FortronBalancer get()
+	{
+		FortronBalancer balancer = WORKSPACE.get();
+		return balancer.isBalancing ? new FortronBalancer() : balancer;
+	}
+
+	void begin()
+	{
+		this.isBalancing = true;
+		this.count = 0;
+	}
+
+	void end()
+	{
+		for (int i = 0; i < this.count; i++)
+		{
+			this.machines[i] = null;
+		}
+
+		this.count = 0;
+		this.isBalancing = false;
+	}
+
+	/**
+	 * Reads the energy of a machine into the arrays.
+	 *
+	 * @return The index of the machine.
+	 */
+	int add(IFortronFrequency machine)
+	{
+		if (this.count >= this.machines.length)
+		{
+			int length = this.machines.length * 2;
+			IFortronFrequency[] machines = new IFortronFrequency[length];
+			System.arraycopy(this.machines, 0, machines, 0, this.count);
+			this.machines = machines;
+			this.energy = copyOf(this.energy, length);
+			this.capacity = copyOf(this.capacity, length);
+			this.initialEnergy = copyOf(this.initialEnergy, length);
+		}
+
+		int index = this.count++;
+		this.machines[index] = machine;
+		this.energy[index] = machine.getFortronEnergy();
+		this.capacity[index] = machine.getFortronCapacity();
+		this.initialEnergy[index] = this.energy[index];
+		return index;
+	}
+
+	/**
+	 * @return A scratch array large enough to hold a group of the given size.
+	 */
+	int[] group(int size)
+	{
+		if (this.group.length < size)
+		{
+			this.group = new int[Math.max(size, this.group.length * 2)];
+		}
+
+		return this.group;
+	}
+
+	/**
+	 * Balances a transferer with a group of machines, working on the arrays only.
+	 *
+	 * @param transferer - Index of the transferer.
+	 * @param group - Indices of the machines in the group, which may include the transferer.
+	 * @param groupSize - Amount of indices in the group.
+	 * @param setSize - The size of the set the group was made from, used by DISTRIBUTE.
+	 */
+	void balance(int transferer, int[] group, int groupSize, int setSize, TransferMode transferMode, int limit)
+	{
+		int totalFortron = 0;
+		int totalCapacity = 0;
+
+		for (int i = 0; i < groupSize; i++)
+		{
+			totalFortron += this.energy[group[i]];
+			totalCapacity += this.capacity[group[i]];
+		}
+
+		if (totalFortron <= 0 || totalCapacity <= 0)
+		{
+			return;
+		}
+
+		BeamRenderer beams = BeamRenderer.of(this.machines[transferer]);
+
+		/**
+		 * Transfers from the transferer to itself change nothing, so the transferer is skipped.
+		 */
+		switch (transferMode)
+		{
+			case EQUALIZE:
+			{
+				for (int i = 0; i < groupSize; i++)
+				{
+					int machine = group[i];
+
+					if (machine != transferer)
+					{
+						double capacityPercentage = (double) this.capacity[machine] / (double) totalCapacity;
+						int amountToSet = (int) (totalFortron * capacityPercentage);
+						this.transfer(transferer, machine, amountToSet - this.energy[machine], limit, beams);
+					}
+				}
+
+				break;
+			}
+			case DISTRIBUTE:
+			{
+				final int amountToSet = totalFortron / setSize;
+
+				for (int i = 0; i < groupSize; i++)
+				{
+					int machine = group[i];
+
+					if (machine != transferer)
+					{
+						this.transfer(transferer, machine, amountToSet - this.energy[machine], limit, beams);
+					}
+				}
+
+				break;
+			}
+			case DRAIN:
+			{
+				for (int i = 0; i < groupSize; i++)
+				{
+					int machine = group[i];
+
+					if (machine != transferer)
+					{
+						double capacityPercentage = (double) this.capacity[machine] / (double) totalCapacity;
+						int amountToSet = (int) (totalFortron * capacityPercentage);
+
+						if (amountToSet - this.energy[machine] > 0)
+						{
+							this.transfer(transferer, machine, amountToSet - this.energy[machine], limit, beams);
+						}
+					}
+				}
+
+				break;
+			}
+			case FILL:
+			{
+				if (this.energy[transferer] < this.capacity[transferer])
+				{
+					// The amount of energy required to be full.
+					int requiredFortron = this.capacity[transferer] - this.energy[transferer];
+
+					for (int i = 0; i < groupSize; i++)
+					{
+						int machine = group[i];
+
+						if (machine != transferer)
+						{
+							int amountToConsume = Math.min(requiredFortron, this.energy[machine]);
+							int amountToSet = -this.energy[machine] - amountToConsume;
+
+							if (amountToConsume > 0)
+							{
+								this.transfer(transferer, machine, amountToSet - this.energy[machine], limit, beams);
+							}
+						}
+					}
+				}
+
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Moves Fortron between the transferer and a machine, clamped the same way requestFortron and
+	 * provideFortron clamp it.
+	 */
+	private void transfer(int transferer, int receiver, int joules, int limit, BeamRenderer beams)
+	{
+		if (joules > 0)
+		{
+			// Transfer energy to receiver.
+			int amount = Math.min(Math.min(Math.min(joules, limit), this.energy[transferer]), this.capacity[receiver] - this.energy[receiver]);
+
+			if (amount > 0)
+			{
+				this.energy[receiver] += amount;
+				this.energy[transferer] -= amount;
+
+				if (beams != null)
+				{
+					beams.render(this.machines[transferer], this.machines[receiver]);
+				}
+			}
+		}
+		else
+		{
+			// Take energy from receiver.
+			int amount = Math.min(Math.min(Math.min(Math.abs(joules), limit), this.energy[receiver]), this.capacity[transferer] - this.energy[transferer]);
+
+			if (amount > 0)
+			{
+				this.energy[receiver] -= amount;
+				this.energy[transferer] += amount;
+
+				if (beams != null)
+				{
+					beams.render(this.machines[receiver], this.machines[transferer]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the net change of every machine back to it.
+	 */
+	void apply()
+	{
+		for (int i = 0; i < this.count; i++)
+		{
+			int amount = this.energy[i] - this.initialEnergy[i];
+
+			if (amount != 0)
+			{
+				addFortron(this.machines[i], amount);
+				this.initialEnergy[i] = this.energy[i];
+			}
+		}
+	}
+
+	/**
+	 * Adds Fortron to a machine. The amount has already been clamped to what the machine can
+	 * take or give.
+	 */
+	static void addFortron(IFortronFrequency machine, int amount)
+	{
+		if (machine instanceof TileEntityFortron)
+		{
+			((TileEntityFortron) machine).addFortronEnergy(amount);
+		}
+		else if (amount > 0)
+		{
+			machine.provideFortron(amount, true);
+		}
+		else
+		{
+			machine.requestFortron(-amount, true);
+		}
+	}
+
+	private static int[] copyOf(int[] array, int length)
+	{
+		int[] copy = new int[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+
+	/**
+	 * Draws the transfer beams on the client side.
+	 */
+	static class BeamRenderer
+	{
+		private final World world;
+
+		private BeamRenderer(World world)
+		{
+			this.world = world;
+		}
+
+		/**
+		 * @return A renderer, or null if the transferer should not draw beams.
+		 */
+		static BeamRenderer of(IFortronFrequency transferer)
+		{
+			World world = ((TileEntity) transferer).worldObj;
+
+			if (world == null || !world.isRemote)
+			{
+				return null;
+			}
+
+			if (transferer instanceof IModuleAcceptor && ((IModuleAcceptor) transferer).getModuleCount(ModularForceFieldSystem.itemModuleCamouflage) > 0)
+			{
+				return null;
+			}
+
+			return new BeamRenderer(world);
+		}
+
+		void render(IFortronFrequency from, IFortronFrequency to)
+		{
+			ModularForceFieldSystem.proxy.renderBeam(this.world, Vector3.add(new Vector3((TileEntity) from), 0.5), Vector3.add(new Vector3((TileEntity) to), 0.5), 0.6f, 0.6f, 1, 20);
+		}
+	}
+}
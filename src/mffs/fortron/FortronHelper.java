@@ -1,7 +1,6 @@
 package mffs.fortron;
 
 import net.minecraftforge.liquids.LiquidStack;
-import net.minecraftforge.liquids.LiquidTank;
 
 /**
  * A class with useful functions related to Fortron.
@@ -29,11 +28,11 @@ public class FortronHelper
 		return 0;
 	}
 
-	public static int getAmount(LiquidTank fortronTank)
+	public static int getAmount(FortronTank fortronTank)
 	{
 		if (fortronTank != null)
 		{
-			return getAmount(fortronTank.getLiquid());
+			return fortronTank.getAmount();
 		}
 
 		return 0;
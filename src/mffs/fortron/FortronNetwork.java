@@ -0,0 +1,461 @@
+package mffs.fortron;
+
+import icbm.api.IBlockFrequency;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import mffs.TransferMode;
+import mffs.api.fortron.IFortronFrequency;
+import mffs.tileentity.TileEntityFortronCapacitor;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+import universalelectricity.core.vector.Vector3;
+
+/**
+ * All Fortron machines of one frequency in one world. Instead of every capacitor balancing its
+ * own neighbourhood on its own tick, the network is ticked once per world tick by the frequency
+ * grid and balances all of its capacitors together.
+ *
+ * Each transmitting capacitor puts a constraint on the machines in its range: the amount its
+ * transfer mode wants each of them to hold. The constraints are all worked out from the same
+ * energy readings, so the order of the capacitors does not matter. The desired change of a
+ * machine is the average of the changes its constraints ask for, limited by the transmission
+ * rates. Fortron is conserved by scaling down whichever of the giving or taking side is larger,
+ * then the net change of each machine is written to it once.
+ *
+ * @author Calclavia
+ *
+ */
+public class FortronNetwork
+{
+	/**
+	 * The interval the transmission rate of a capacitor is given for, in ticks. The rate is spread
+	 * over the ticks of the interval. Beams are drawn once per interval.
+	 */
+	public static final int BALANCE_INTERVAL = 10;
+
+	private final FrequencyGrid grid;
+	private final World world;
+	private final int frequency;
+	private final Set<IBlockFrequency> members;
+
+	/**
+	 * Built from the members when they change.
+	 */
+	private List<IFortronFrequency> machines;
+	private Map<IFortronFrequency, Integer> machineIndex;
+	private List<TileEntityFortronCapacitor> capacitors;
+
+	/**
+	 * The neighbourhood of each capacitor as machine indices, with the range it was built for.
+	 */
+	private final Map<TileEntityFortronCapacitor, Neighbourhood> neighbourhoods = new IdentityHashMap<TileEntityFortronCapacitor, Neighbourhood>();
+
+	/**
+	 * Per machine arrays, sized when the network is built and reused every tick.
+	 */
+	private int[] energy;
+	private int[] capacity;
+	private long[] requested;
+	private int[] constraints;
+	private int[] limit;
+	private int[] delta;
+
+	/**
+	 * The capacitor that draws the beam of each machine, or -1 if none.
+	 */
+	private int[] beamSource;
+
+	private long lastBalanceTime = Long.MIN_VALUE;
+
+	FortronNetwork(FrequencyGrid grid, World world, int frequency, Set<IBlockFrequency> members)
+	{
+		this.grid = grid;
+		this.world = world;
+		this.frequency = frequency;
+		this.members = members;
+	}
+
+	/**
+	 * Called when machines join or leave the frequency.
+	 */
+	void invalidate()
+	{
+		this.machines = null;
+		this.machineIndex = null;
+		this.capacitors = null;
+		this.neighbourhoods.clear();
+	}
+
+	/**
+	 * Called by the frequency grid once per tick. Balances the network if it has not been
+	 * balanced this world tick yet.
+	 */
+	public void update()
+	{
+		long time = this.world.getTotalWorldTime();
+
+		if (time != this.lastBalanceTime)
+		{
+			this.lastBalanceTime = time;
+			this.balance();
+		}
+	}
+
+	/**
+	 * Moves one tick worth of Fortron between the machines of the network, for all transmitting
+	 * capacitors at once. The energy of each machine is read once before and written once after.
+	 */
+	public void balance()
+	{
+		if (this.machines == null)
+		{
+			this.build();
+		}
+
+		if (this.capacitors.isEmpty())
+		{
+			return;
+		}
+
+		int count = this.machines.size();
+
+		for (int i = 0; i < count; i++)
+		{
+			IFortronFrequency machine = this.machines.get(i);
+			this.energy[i] = machine.getFortronEnergy();
+			this.capacity[i] = machine.getFortronCapacity();
+			this.requested[i] = 0;
+			this.constraints[i] = 0;
+			this.limit[i] = 0;
+			this.beamSource[i] = -1;
+		}
+
+		boolean hasConstraints = false;
+
+		for (TileEntityFortronCapacitor capacitor : this.capacitors)
+		{
+			if (capacitor.isTransmittingToNetwork())
+			{
+				Neighbourhood neighbourhood = this.getNeighbourhood(capacitor);
+
+				if (neighbourhood.setSize > 1)
+				{
+					hasConstraints |= this.constrain(this.machineIndex.get(capacitor), neighbourhood, capacitor.getTransferMode(), capacitor.getTransmissionRate());
+				}
+			}
+		}
+
+		if (hasConstraints)
+		{
+			this.transfer(count);
+		}
+	}
+
+	/**
+	 * Adds the changes a capacitor's transfer mode asks for to the machines in its neighbourhood,
+	 * using the formulas capacitors have always balanced with.
+	 *
+	 * @return True if the capacitor asked for any change.
+	 */
+	private boolean constrain(int transferer, Neighbourhood neighbourhood, TransferMode transferMode, int rate)
+	{
+		int[] group = neighbourhood.indices;
+		long totalFortron = 0;
+		long totalCapacity = 0;
+
+		for (int machine : group)
+		{
+			totalFortron += this.energy[machine];
+			totalCapacity += this.capacity[machine];
+		}
+
+		if (totalFortron <= 0 || totalCapacity <= 0)
+		{
+			return false;
+		}
+
+		switch (transferMode)
+		{
+			case EQUALIZE:
+			{
+				for (int machine : group)
+				{
+					this.request(machine, (long) (totalFortron * ((double) this.capacity[machine] / (double) totalCapacity)) - this.energy[machine]);
+				}
+
+				break;
+			}
+			case DISTRIBUTE:
+			{
+				long amountToSet = totalFortron / neighbourhood.setSize;
+
+				for (int machine : group)
+				{
+					this.request(machine, amountToSet - this.energy[machine]);
+				}
+
+				break;
+			}
+			case DRAIN:
+			{
+				long drained = 0;
+
+				for (int machine : group)
+				{
+					if (machine != transferer)
+					{
+						long amount = (long) (totalFortron * ((double) this.capacity[machine] / (double) totalCapacity)) - this.energy[machine];
+
+						if (amount > 0)
+						{
+							this.request(machine, amount);
+							drained += amount;
+						}
+					}
+				}
+
+				this.request(transferer, -drained);
+				break;
+			}
+			case FILL:
+			{
+				long required = this.capacity[transferer] - this.energy[transferer];
+				long available = totalFortron - this.energy[transferer];
+
+				if (required <= 0 || available <= 0)
+				{
+					return false;
+				}
+
+				for (int machine : group)
+				{
+					if (machine != transferer)
+					{
+						this.request(machine, -Math.min(this.energy[machine], required * this.energy[machine] / available));
+					}
+				}
+
+				this.request(transferer, Math.min(required, available));
+				break;
+			}
+		}
+
+		/**
+		 * A capacitor moves up to its rate to or from each machine, so its own limit is the rate
+		 * times the machines it reaches.
+		 */
+		for (int machine : group)
+		{
+			long machineRate = machine == transferer ? (long) rate * (group.length - 1) : rate;
+			this.limit[machine] = (int) Math.min(Integer.MAX_VALUE, Math.max(this.limit[machine], (machineRate + BALANCE_INTERVAL - 1) / BALANCE_INTERVAL));
+
+			if (machine != transferer && this.beamSource[machine] < 0)
+			{
+				this.beamSource[machine] = transferer;
+			}
+		}
+
+		return true;
+	}
+
+	private void request(int machine, long amount)
+	{
+		this.requested[machine] += amount;
+		this.constraints[machine]++;
+	}
+
+	/**
+	 * Turns the requested changes into one tick of transfers and writes them to the machines.
+	 */
+	private void transfer(int count)
+	{
+		long giving = 0;
+		long taking = 0;
+
+		for (int i = 0; i < count; i++)
+		{
+			int amount = 0;
+
+			if (this.constraints[i] > 0)
+			{
+				long average = this.requested[i] / this.constraints[i];
+				amount = (int) Math.max(Math.min(average, Math.min(this.limit[i], this.capacity[i] - this.energy[i])), -Math.min(this.limit[i], this.energy[i]));
+			}
+
+			this.delta[i] = amount;
+
+			if (amount > 0)
+			{
+				taking += amount;
+			}
+			else
+			{
+				giving -= amount;
+			}
+		}
+
+		long moved = Math.min(giving, taking);
+
+		if (moved <= 0)
+		{
+			return;
+		}
+
+		this.scale(count, true, taking, moved);
+		this.scale(count, false, giving, moved);
+
+		boolean drawBeams = this.world.isRemote && this.lastBalanceTime % BALANCE_INTERVAL == 0;
+
+		for (int i = 0; i < count; i++)
+		{
+			if (this.delta[i] != 0)
+			{
+				IFortronFrequency machine = this.machines.get(i);
+				FortronBalancer.addFortron(machine, this.delta[i]);
+
+				if (drawBeams && this.beamSource[i] >= 0)
+				{
+					IFortronFrequency source = this.machines.get(this.beamSource[i]);
+					FortronBalancer.BeamRenderer beams = FortronBalancer.BeamRenderer.of(source);
+
+					if (beams != null)
+					{
+						if (this.delta[i] > 0)
+						{
+							beams.render(source, machine);
+						}
+						else
+						{
+							beams.render(machine, source);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scales the positive or the negative changes down so they add up to exactly the amount
+	 * moved. The rounding leftover goes to the first machines that were cut short.
+	 */
+	private void scale(int count, boolean positive, long total, long moved)
+	{
+		if (total == moved)
+		{
+			return;
+		}
+
+		long remaining = moved;
+
+		for (int i = 0; i < count; i++)
+		{
+			if (positive ? this.delta[i] > 0 : this.delta[i] < 0)
+			{
+				this.requested[i] = Math.abs(this.delta[i]);
+				long amount = this.requested[i] * moved / total;
+				this.delta[i] = (int) (positive ? amount : -amount);
+				remaining -= amount;
+			}
+			else
+			{
+				this.requested[i] = 0;
+			}
+		}
+
+		for (int i = 0; i < count && remaining > 0; i++)
+		{
+			long room = this.requested[i] - Math.abs(this.delta[i]);
+
+			if (room > 0)
+			{
+				int amount = (int) Math.min(remaining, room);
+				this.delta[i] += positive ? amount : -amount;
+				remaining -= amount;
+			}
+		}
+	}
+
+	private void build()
+	{
+		this.machines = new ArrayList<IFortronFrequency>();
+		this.machineIndex = new IdentityHashMap<IFortronFrequency, Integer>();
+		this.capacitors = new ArrayList<TileEntityFortronCapacitor>();
+
+		for (IBlockFrequency member : this.members)
+		{
+			if (member instanceof IFortronFrequency && !((TileEntity) member).isInvalid())
+			{
+				this.machineIndex.put((IFortronFrequency) member, this.machines.size());
+				this.machines.add((IFortronFrequency) member);
+
+				if (member instanceof TileEntityFortronCapacitor)
+				{
+					this.capacitors.add((TileEntityFortronCapacitor) member);
+				}
+			}
+		}
+
+		int count = this.machines.size();
+		this.energy = new int[count];
+		this.capacity = new int[count];
+		this.requested = new long[count];
+		this.constraints = new int[count];
+		this.limit = new int[count];
+		this.delta = new int[count];
+		this.beamSource = new int[count];
+	}
+
+	private Neighbourhood getNeighbourhood(TileEntityFortronCapacitor capacitor)
+	{
+		int range = capacitor.getTransmissionRange();
+		Neighbourhood neighbourhood = this.neighbourhoods.get(capacitor);
+
+		if (neighbourhood == null || neighbourhood.range != range)
+		{
+			Set<IFortronFrequency> machines = this.grid.getFortronTiles(this.world, new Vector3(capacitor), range, this.frequency);
+			int[] indices = new int[machines.size()];
+			int count = 0;
+
+			for (IFortronFrequency machine : machines)
+			{
+				Integer index = this.machineIndex.get(machine);
+
+				if (index != null)
+				{
+					indices[count++] = index;
+				}
+			}
+
+			if (count < indices.length)
+			{
+				int[] trimmed = new int[count];
+				System.arraycopy(indices, 0, trimmed, 0, count);
+				indices = trimmed;
+			}
+
+			neighbourhood = new Neighbourhood(range, indices, machines.size());
+			this.neighbourhoods.put(capacitor, neighbourhood);
+		}
+
+		return neighbourhood;
+	}
+
+	private static class Neighbourhood
+	{
+		private final int range;
+		private final int[] indices;
+		private final int setSize;
+
+		private Neighbourhood(int range, int[] indices, int setSize)
+		{
+			this.range = range;
+			this.indices = indices;
+			this.setSize = setSize;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package mffs.fortron;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraftforge.liquids.ILiquidTank;
+import net.minecraftforge.liquids.LiquidEvent;
+import net.minecraftforge.liquids.LiquidStack;
+
+/**
+ * A Fortron tank backed by a plain int. MFFS machines use the int methods, which never allocate.
+ * The ILiquidTank methods are only an adapter for pipes and other mods, and create LiquidStacks
+ * as needed. Like LiquidTank, filling and draining through the adapter fire LiquidEvents if the
+ * tank has a tile.
+ *
+ * @author Calclavia
+ *
+ */
+public class FortronTank implements ILiquidTank
+{
+	private int amount;
+	private int capacity;
+	private final TileEntity tile;
+
+	public FortronTank(int capacity)
+	{
+		this(capacity, null);
+	}
+
+	public FortronTank(int capacity, TileEntity tile)
+	{
+		this.capacity = capacity;
+		this.tile = tile;
+	}
+
+	public int getAmount()
+	{
+		return this.amount;
+	}
+
+	public void setAmount(int amount)
+	{
+		this.amount = Math.max(amount, 0);
+	}
+
+	@Override
+	public int getCapacity()
+	{
+		return this.capacity;
+	}
+
+	public void setCapacity(int capacity)
+	{
+		this.capacity = capacity;
+	}
+
+	/**
+	 * @return The amount of Fortron that was, or would be, filled.
+	 */
+	public int fillAmount(int amount, boolean doFill)
+	{
+		int filled = Math.min(amount, Math.max(this.capacity - this.amount, 0));
+
+		if (filled <= 0)
+		{
+			return 0;
+		}
+
+		if (doFill)
+		{
+			this.amount += filled;
+		}
+
+		return filled;
+	}
+
+	/**
+	 * @return The amount of Fortron that was, or would be, drained.
+	 */
+	public int drainAmount(int amount, boolean doDrain)
+	{
+		int drained = Math.min(amount, this.amount);
+
+		if (drained <= 0)
+		{
+			return 0;
+		}
+
+		if (doDrain)
+		{
+			this.amount -= drained;
+		}
+
+		return drained;
+	}
+
+	/**
+	 * Liquid adapter.
+	 */
+	@Override
+	public LiquidStack getLiquid()
+	{
+		return FortronHelper.getFortron(this.amount);
+	}
+
+	@Override
+	public int fill(LiquidStack resource, boolean doFill)
+	{
+		if (resource != null && resource.isLiquidEqual(FortronHelper.LIQUID_FORTRON))
+		{
+			int filled = this.fillAmount(resource.amount, doFill);
+
+			if (doFill && filled > 0 && this.tile != null)
+			{
+				LiquidEvent.fireEvent(new LiquidEvent.LiquidFillingEvent(this.getLiquid(), this.tile.worldObj, this.tile.xCoord, this.tile.yCoord, this.tile.zCoord, this));
+			}
+
+			return filled;
+		}
+
+		return 0;
+	}
+
+	@Override
+	public LiquidStack drain(int maxDrain, boolean doDrain)
+	{
+		int drained = this.drainAmount(maxDrain, doDrain);
+
+		if (drained > 0)
+		{
+			LiquidStack liquid = FortronHelper.getFortron(drained);
+
+			if (doDrain && this.tile != null)
+			{
+				LiquidEvent.fireEvent(new LiquidEvent.LiquidDrainingEvent(liquid, this.tile.worldObj, this.tile.xCoord, this.tile.yCoord, this.tile.zCoord, this));
+			}
+
+			return liquid;
+		}
+
+		return null;
+	}
+
+	@Override
+	public int getTankPressure()
+	{
+		return 0;
+	}
+}
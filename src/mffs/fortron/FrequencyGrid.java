@@ -2,10 +2,16 @@ package mffs.fortron;
 
 import icbm.api.IBlockFrequency;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import mffs.api.ChunkPositionSet;
 import mffs.api.fortron.IFortronFrequency;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.world.World;
@@ -15,59 +21,140 @@ import cpw.mods.fml.relauncher.Side;
 
 /**
  * A grid MFFS uses to search for machines with frequencies that can be linked and spread Fortron
- * energy.
- * 
+ * energy. Machines are indexed per world, then per frequency, then by the chunk they are in.
+ *
+ * The query methods return unmodifiable sets instead of new HashSets. They are live views or cached
+ * results, so a caller that wants to modify a result or keep it across ticks must copy it first.
+ *
  * @author Calclavia
- * 
+ *
  */
 public class FrequencyGrid
 {
 	private static FrequencyGrid CLIENT_INSTANCE = new FrequencyGrid();
 	private static FrequencyGrid SERVER_INSTANCE = new FrequencyGrid();
 
+	/**
+	 * The maximum amount of radius queries cached per world and frequency.
+	 */
+	private static final int MAX_CACHED_QUERIES = 64;
+
 	private final Set<IBlockFrequency> frequencyGrid = new HashSet<IBlockFrequency>();
 
+	/**
+	 * All machines of a frequency, across all worlds.
+	 */
+	private final Map<Integer, Set<IBlockFrequency>> frequencies = new HashMap<Integer, Set<IBlockFrequency>>();
+
+	private final Map<World, Map<Integer, FrequencyCells>> worlds = new HashMap<World, Map<Integer, FrequencyCells>>();
+
+	/**
+	 * The cells each machine was indexed in, so it can be removed without searching.
+	 */
+	private final Map<IBlockFrequency, FrequencyCells> indexed = new HashMap<IBlockFrequency, FrequencyCells>();
+
 	public void register(IBlockFrequency tileEntity)
 	{
+		if (tileEntity == null || ((TileEntity) tileEntity).worldObj == null)
+		{
+			return;
+		}
+
+		FrequencyCells cells = this.indexed.get(tileEntity);
+
+		if (cells != null)
+		{
+			if (cells.world == ((TileEntity) tileEntity).worldObj)
+			{
+				this.onFrequencyChanged(tileEntity, cells.frequency, tileEntity.getFrequency());
+				return;
+			}
+
+			this.unindex(tileEntity);
+		}
+
 		this.frequencyGrid.add(tileEntity);
+		this.index(tileEntity, tileEntity.getFrequency());
 	}
 
 	public void unregister(IBlockFrequency tileEntity)
 	{
 		this.frequencyGrid.remove(tileEntity);
-		this.cleanUp();
+		this.unindex(tileEntity);
 	}
 
+	/**
+	 * Called by a machine when its frequency changes. Moves the machine from the bucket of the old
+	 * frequency to the bucket of the new one, which invalidates the cached queries of both.
+	 * Machines that are not registered are ignored.
+	 */
+	public void onFrequencyChanged(IBlockFrequency tileEntity, int oldFrequency, int newFrequency)
+	{
+		if (oldFrequency != newFrequency)
+		{
+			FrequencyCells cells = this.indexed.get(tileEntity);
+
+			if (cells != null && cells.frequency == oldFrequency)
+			{
+				this.unindex(tileEntity);
+				this.index(tileEntity, newFrequency);
+			}
+		}
+	}
+
+	/**
+	 * @return All registered machines. Do not modify this set.
+	 */
 	public Set<IBlockFrequency> get()
 	{
 		return this.frequencyGrid;
 	}
 
 	/**
-	 * Gets a list of TileEntities that has a specific frequency.
-	 * 
+	 * Gets a set of TileEntities that has a specific frequency in all worlds.
+	 *
 	 * @param frequency - The Frequency
+	 * @return An unmodifiable live view of the machines. Copy it to modify it or to keep it.
 	 * */
 	public Set<IBlockFrequency> get(int frequency)
 	{
-		Set<IBlockFrequency> set = new HashSet<IBlockFrequency>();
+		Set<IBlockFrequency> set = this.frequencies.get(frequency);
 
-		for (IBlockFrequency tile : this.get())
+		if (set != null)
 		{
-			if (tile != null && !((TileEntity) tile).isInvalid())
-			{
-				if (tile.getFrequency() == frequency)
-				{
-					set.add(tile);
-				}
-			}
+			return Collections.unmodifiableSet(set);
 		}
 
-		return set;
+		return Collections.emptySet();
+	}
+
+	/**
+	 * Gets a set of TileEntities that has a specific frequency in one world.
+	 *
+	 * @return An unmodifiable live view of the machines. Copy it to modify it or to keep it.
+	 */
+	public Set<IBlockFrequency> get(World world, int frequency)
+	{
+		FrequencyCells cells = this.getCells(world, frequency, false);
+
+		if (cells != null)
+		{
+			return Collections.unmodifiableSet(cells.members);
+		}
+
+		return Collections.emptySet();
 	}
 
-	public void cleanUp()
+	/**
+	 * Removes machines that are no longer in the world. Membership is kept up to date by the
+	 * machines themselves, so this is only a rare audit.
+	 *
+	 * @return The amount of stale entries removed.
+	 */
+	public int cleanUp()
 	{
+		List<IBlockFrequency> removed = new ArrayList<IBlockFrequency>();
+
 		try
 		{
 			Iterator<IBlockFrequency> it = this.frequencyGrid.iterator();
@@ -82,59 +169,198 @@ public class FrequencyGrid
 					continue;
 				}
 
-				if (((TileEntity) frequency).isInvalid())
-				{
-					it.remove();
-					continue;
-				}
+				TileEntity tileEntity = (TileEntity) frequency;
 
-				if (((TileEntity) frequency).worldObj.getBlockTileEntity(((TileEntity) frequency).xCoord, ((TileEntity) frequency).yCoord, ((TileEntity) frequency).zCoord) != ((TileEntity) frequency))
+				if (tileEntity.isInvalid() || !tileEntity.worldObj.blockExists(tileEntity.xCoord, tileEntity.yCoord, tileEntity.zCoord) || tileEntity.worldObj.getBlockTileEntity(tileEntity.xCoord, tileEntity.yCoord, tileEntity.zCoord) != tileEntity)
 				{
 					it.remove();
+					removed.add(frequency);
 					continue;
 				}
 			}
+
+			for (IBlockFrequency frequency : removed)
+			{
+				this.unindex(frequency);
+			}
 		}
 		catch (Exception e)
 		{
 			e.printStackTrace();
 		}
+
+		return removed.size();
 	}
 
+	/**
+	 * @return An unmodifiable set of machines with the frequency within the radius. Results for
+	 * block positions are cached until a machine of the frequency is added or removed, so the set
+	 * may be shared with other callers. Copy it to modify it or to keep it.
+	 */
 	public Set<IBlockFrequency> get(World world, Vector3 position, int radius, int frequency)
 	{
-		Set<IBlockFrequency> set = new HashSet<IBlockFrequency>();
+		FrequencyCells cells = this.getCells(world, frequency, false);
+
+		if (cells == null)
+		{
+			return Collections.emptySet();
+		}
+
+		Query query = Query.of(position, radius);
+		Set<IBlockFrequency> set = query != null ? cells.blockQueries.get(query) : null;
 
-		for (IBlockFrequency tileEntity : this.get(frequency))
+		if (set == null)
 		{
-			if (((TileEntity) tileEntity).worldObj == world)
+			set = Collections.unmodifiableSet(cells.search(position, radius, IBlockFrequency.class));
+			cells.cache(cells.blockQueries, query, set);
+		}
+
+		return set;
+	}
+
+	/**
+	 * @return An unmodifiable set of Fortron machines with the frequency within the radius.
+	 * Results for block positions are cached until a machine of the frequency is added or removed,
+	 * so the set may be shared with other callers. Copy it to modify it or to keep it.
+	 */
+	public Set<IFortronFrequency> getFortronTiles(World world, Vector3 position, int radius, int frequency)
+	{
+		FrequencyCells cells = this.getCells(world, frequency, false);
+
+		if (cells == null)
+		{
+			return Collections.emptySet();
+		}
+
+		Query query = Query.of(position, radius);
+		Set<IFortronFrequency> set = query != null ? cells.fortronQueries.get(query) : null;
+
+		if (set == null)
+		{
+			set = Collections.unmodifiableSet(cells.search(position, radius, IFortronFrequency.class));
+			cells.cache(cells.fortronQueries, query, set);
+		}
+
+		return set;
+	}
+
+	/**
+	 * @return The Fortron network of a frequency in a world, or null if no machine is on the
+	 * frequency.
+	 */
+	public FortronNetwork getFortronNetwork(World world, int frequency)
+	{
+		FrequencyCells cells = this.getCells(world, frequency, false);
+
+		if (cells == null)
+		{
+			return null;
+		}
+
+		if (cells.network == null)
+		{
+			cells.network = new FortronNetwork(this, world, frequency, cells.members);
+		}
+
+		return cells.network;
+	}
+
+	/**
+	 * Ticks the Fortron network of every frequency in every world of this grid. Called once per
+	 * tick by the tick handler of the grid's side.
+	 */
+	public void updateNetworks()
+	{
+		for (Map<Integer, FrequencyCells> worldCells : this.worlds.values())
+		{
+			for (FrequencyCells cells : worldCells.values())
 			{
-				if (Vector3.distance(new Vector3((TileEntity) tileEntity), position) <= radius)
+				if (cells.network == null)
 				{
-					set.add(tileEntity);
+					cells.network = new FortronNetwork(this, cells.world, cells.frequency, cells.members);
 				}
+
+				cells.network.update();
 			}
 		}
-		return set;
+	}
+
+	private FrequencyCells getCells(World world, int frequency, boolean create)
+	{
+		Map<Integer, FrequencyCells> worldCells = this.worlds.get(world);
+
+		if (worldCells == null)
+		{
+			if (!create)
+			{
+				return null;
+			}
+
+			worldCells = new HashMap<Integer, FrequencyCells>();
+			this.worlds.put(world, worldCells);
+		}
+
+		FrequencyCells cells = worldCells.get(frequency);
+
+		if (cells == null && create)
+		{
+			cells = new FrequencyCells(world, frequency);
+			worldCells.put(frequency, cells);
+		}
 
+		return cells;
 	}
 
-	public Set<IFortronFrequency> getFortronTiles(World world, Vector3 position, int radius, int frequency)
+	private void index(IBlockFrequency tileEntity, int frequency)
 	{
-		Set<IFortronFrequency> set = new HashSet<IFortronFrequency>();
+		TileEntity tile = (TileEntity) tileEntity;
+
+		FrequencyCells cells = this.getCells(tile.worldObj, frequency, true);
+		cells.add(tileEntity);
+		this.indexed.put(tileEntity, cells);
 
-		for (IBlockFrequency tileEntity : this.get(frequency))
+		Set<IBlockFrequency> set = this.frequencies.get(frequency);
+
+		if (set == null)
 		{
-			if (((TileEntity) tileEntity).worldObj == world && tileEntity instanceof IFortronFrequency)
+			set = new HashSet<IBlockFrequency>();
+			this.frequencies.put(frequency, set);
+		}
+
+		set.add(tileEntity);
+	}
+
+	private void unindex(IBlockFrequency tileEntity)
+	{
+		FrequencyCells cells = this.indexed.remove(tileEntity);
+
+		if (cells != null)
+		{
+			cells.remove(tileEntity);
+
+			if (cells.members.isEmpty())
 			{
-				if (Vector3.distance(new Vector3((TileEntity) tileEntity), position) <= radius)
+				Map<Integer, FrequencyCells> worldCells = this.worlds.get(cells.world);
+				worldCells.remove(cells.frequency);
+
+				if (worldCells.isEmpty())
 				{
-					set.add((IFortronFrequency) tileEntity);
+					this.worlds.remove(cells.world);
 				}
 			}
-		}
-		return set;
 
+			Set<IBlockFrequency> set = this.frequencies.get(cells.frequency);
+
+			if (set != null)
+			{
+				set.remove(tileEntity);
+
+				if (set.isEmpty())
+				{
+					this.frequencies.remove(cells.frequency);
+				}
+			}
+		}
 	}
 
 	/**
@@ -156,4 +382,201 @@ public class FrequencyGrid
 
 		return CLIENT_INSTANCE;
 	}
+
+	/**
+	 * The machines of one frequency in one world, bucketed by chunk.
+	 */
+	private static class FrequencyCells
+	{
+		private final World world;
+		private final int frequency;
+
+		private final Set<IBlockFrequency> members = new HashSet<IBlockFrequency>();
+		private final Map<Long, List<IBlockFrequency>> cells = new HashMap<Long, List<IBlockFrequency>>();
+
+		private final Map<Query, Set<IBlockFrequency>> blockQueries = new HashMap<Query, Set<IBlockFrequency>>();
+		private final Map<Query, Set<IFortronFrequency>> fortronQueries = new HashMap<Query, Set<IFortronFrequency>>();
+
+		private FortronNetwork network;
+
+		private FrequencyCells(World world, int frequency)
+		{
+			this.world = world;
+			this.frequency = frequency;
+		}
+
+		private void add(IBlockFrequency tileEntity)
+		{
+			if (this.members.add(tileEntity))
+			{
+				TileEntity tile = (TileEntity) tileEntity;
+				long cell = ChunkPositionSet.packChunk(tile.xCoord >> 4, tile.zCoord >> 4);
+				List<IBlockFrequency> list = this.cells.get(cell);
+
+				if (list == null)
+				{
+					list = new ArrayList<IBlockFrequency>(2);
+					this.cells.put(cell, list);
+				}
+
+				list.add(tileEntity);
+				this.invalidateQueries();
+			}
+		}
+
+		private void remove(IBlockFrequency tileEntity)
+		{
+			if (this.members.remove(tileEntity))
+			{
+				TileEntity tile = (TileEntity) tileEntity;
+				long cell = ChunkPositionSet.packChunk(tile.xCoord >> 4, tile.zCoord >> 4);
+				List<IBlockFrequency> list = this.cells.get(cell);
+
+				if (list != null)
+				{
+					list.remove(tileEntity);
+
+					if (list.isEmpty())
+					{
+						this.cells.remove(cell);
+					}
+				}
+
+				this.invalidateQueries();
+			}
+		}
+
+		private void invalidateQueries()
+		{
+			this.blockQueries.clear();
+			this.fortronQueries.clear();
+
+			if (this.network != null)
+			{
+				this.network.invalidate();
+			}
+		}
+
+		private <T> void cache(Map<Query, Set<T>> queries, Query query, Set<T> result)
+		{
+			if (query != null)
+			{
+				if (queries.size() >= MAX_CACHED_QUERIES)
+				{
+					queries.clear();
+				}
+
+				queries.put(query, result);
+			}
+		}
+
+		/**
+		 * Finds all machines of a type within the radius, only looking at the cells the radius
+		 * overlaps.
+		 */
+		private <T> Set<T> search(Vector3 position, int radius, Class<T> type)
+		{
+			Set<T> set = new HashSet<T>();
+
+			int minCellX = (int) Math.floor(position.x - radius) >> 4;
+			int maxCellX = (int) Math.floor(position.x + radius) >> 4;
+			int minCellZ = (int) Math.floor(position.z - radius) >> 4;
+			int maxCellZ = (int) Math.floor(position.z + radius) >> 4;
+
+			long cellsInRange = (long) (maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1);
+
+			if (cellsInRange > this.cells.size())
+			{
+				// Fewer occupied cells than cells in range, walk the occupied ones.
+				for (List<IBlockFrequency> list : this.cells.values())
+				{
+					this.search(list, position, radius, type, set);
+				}
+			}
+			else
+			{
+				for (int cellX = minCellX; cellX <= maxCellX; cellX++)
+				{
+					for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++)
+					{
+						List<IBlockFrequency> list = this.cells.get(ChunkPositionSet.packChunk(cellX, cellZ));
+
+						if (list != null)
+						{
+							this.search(list, position, radius, type, set);
+						}
+					}
+				}
+			}
+
+			return set;
+		}
+
+		private <T> void search(List<IBlockFrequency> list, Vector3 position, int radius, Class<T> type, Set<T> set)
+		{
+			double radiusSquared = (double) radius * radius;
+
+			for (IBlockFrequency tileEntity : list)
+			{
+				TileEntity tile = (TileEntity) tileEntity;
+
+				if (type.isInstance(tileEntity) && !tile.isInvalid())
+				{
+					double deltaX = tile.xCoord - position.x;
+					double deltaY = tile.yCoord - position.y;
+					double deltaZ = tile.zCoord - position.z;
+
+					if (deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ <= radiusSquared)
+					{
+						set.add(type.cast(tileEntity));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A cacheable radius query. Only queries from block positions are cached, so that moving
+	 * entities do not fill up the cache.
+	 */
+	private static class Query
+	{
+		private final int x, y, z, radius;
+
+		private Query(int x, int y, int z, int radius)
+		{
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.radius = radius;
+		}
+
+		private static Query of(Vector3 position, int radius)
+		{
+			if (position.x == Math.floor(position.x) && position.y == Math.floor(position.y) && position.z == Math.floor(position.z))
+			{
+				return new Query(position.intX(), position.intY(), position.intZ(), radius);
+			}
+
+			return null;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return ((this.x * 31 + this.y) * 31 + this.z) * 31 + this.radius;
+		}
+
+		@Override
+		public boolean equals(Object object)
+		{
+			if (object instanceof Query)
+			{
+				Query query = (Query) object;
+				return this.x == query.x && this.y == query.y && this.z == query.z && this.radius == query.radius;
+			}
+
+			return false;
+		}
+	}
 }
@@ -3,7 +3,10 @@ package mffs.item.mode;
 import java.util.HashSet;
 import java.util.Set;
 
+import mffs.api.IPositionSink;
 import mffs.api.IProjector;
+import mffs.api.modules.IProjectorModeKernel;
+import mffs.base.RotationTransform;
 import mffs.render.model.ModelCube;
 import net.minecraft.tileentity.TileEntity;
 
@@ -11,11 +14,10 @@ import org.lwjgl.opengl.GL11;
 
 import universalelectricity.core.vector.Vector3;
 import universalelectricity.prefab.vector.Region3;
-import calclavia.lib.CalculationHelper;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
-public class ItemModeCube extends ItemMode
+public class ItemModeCube extends ItemMode implements IProjectorModeKernel
 {
 	public ItemModeCube(int i, String name)
 	{
@@ -50,6 +52,50 @@ public class ItemModeCube extends ItemMode
 		return fieldBlocks;
 	}
 
+	@Override
+	public boolean isRotationInvariant()
+	{
+		return false;
+	}
+
+	@Override
+	public boolean isAxisRotatable()
+	{
+		return true;
+	}
+
+	/**
+	 * Writes the faces of the box. Columns on the sides are filled, the others only get their top
+	 * and bottom.
+	 */
+	@Override
+	public void writeExteriorPoints(IProjector projector, IPositionSink sink)
+	{
+		Vector3 posScale = projector.getPositiveScale();
+		Vector3 negScale = projector.getNegativeScale();
+		int minX = -negScale.intX(), minY = -negScale.intY(), minZ = -negScale.intZ();
+		int maxX = posScale.intX(), maxY = posScale.intY(), maxZ = posScale.intZ();
+
+		for (int x = minX; x <= maxX; x++)
+		{
+			for (int z = minZ; z <= maxZ; z++)
+			{
+				if (x == minX || x == maxX || z == minZ || z == maxZ)
+				{
+					for (int y = minY; y <= maxY; y++)
+					{
+						sink.add(x, y, z);
+					}
+				}
+				else
+				{
+					sink.add(x, minY, z);
+					sink.add(x, maxY, z);
+				}
+			}
+		}
+	}
+
 	@Override
 	public Set<Vector3> getInteriorPoints(IProjector projector)
 	{
@@ -77,7 +123,7 @@ public class ItemModeCube extends ItemMode
 		Vector3 projectorPos = new Vector3((TileEntity) projector);
 		projectorPos.add(projector.getTranslation());
 		Vector3 relativePosition = position.clone().subtract(projectorPos);
-		CalculationHelper.rotateByAngle(relativePosition, -projector.getRotationYaw(), -projector.getRotationPitch());
+		RotationTransform.get(projector).inverseTransform(relativePosition);
 		Region3 region = new Region3(projector.getNegativeScale().clone().multiply(-1), projector.getPositiveScale());
 		return region.isIn(relativePosition);
 	}
@@ -4,7 +4,9 @@ import java.util.HashSet;
 import java.util.Set;
 
 import mffs.ModularForceFieldSystem;
+import mffs.api.IPositionSink;
 import mffs.api.IProjector;
+import mffs.api.modules.IProjectorModeKernel;
 import mffs.render.model.ModelCube;
 import net.minecraft.tileentity.TileEntity;
 
@@ -14,7 +16,7 @@ import universalelectricity.core.vector.Vector3;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
-public class ItemModeSphere extends ItemMode
+public class ItemModeSphere extends ItemMode implements IProjectorModeKernel
 {
 	public ItemModeSphere(int i)
 	{
@@ -24,24 +26,118 @@ public class ItemModeSphere extends ItemMode
 	@Override
 	public Set<Vector3> getExteriorPoints(IProjector projector)
 	{
-		Set<Vector3> fieldBlocks = new HashSet<Vector3>();
-		int radius = projector.getModuleCount(ModularForceFieldSystem.itemModuleScale);
+		final Set<Vector3> fieldBlocks = new HashSet<Vector3>();
 
-		int steps = (int) Math.ceil(Math.PI / Math.atan(1.0D / radius / 2));
+		writeShell(projector.getModuleCount(ModularForceFieldSystem.itemModuleScale), new IPositionSink()
+		{
+			@Override
+			public boolean add(int x, int y, int z)
+			{
+				return fieldBlocks.add(new Vector3(x, y, z));
+			}
+		});
 
-		for (int phi_n = 0; phi_n < 2 * steps; phi_n++)
+		return fieldBlocks;
+	}
+
+	/**
+	 * A sphere looks the same however it is rotated, so its field is never rotated. Rotating the
+	 * one block thick shell and rounding it would leave gaps.
+	 */
+	@Override
+	public boolean isRotationInvariant()
+	{
+		return true;
+	}
+
+	@Override
+	public boolean isAxisRotatable()
+	{
+		return true;
+	}
+
+	@Override
+	public void writeExteriorPoints(IProjector projector, IPositionSink sink)
+	{
+		writeShell(projector.getModuleCount(ModularForceFieldSystem.itemModuleScale), sink);
+	}
+
+	/**
+	 * Writes the blocks whose centers are within half a block of the sphere surface, each exactly
+	 * once. In doubled coordinates that is (2r - 1)^2 <= 4d^2 < (2r + 1)^2, so it is all integer
+	 * math. The shell is one block thick, so there is no gap to walk through at any radius.
+	 *
+	 * Only the columns of one quadrant are visited, and the range of y in each column comes from an
+	 * integer square root, so the work is proportional to the surface. Each point is mirrored into
+	 * the other octants, skipping the mirrors of zero coordinates.
+	 */
+	public static void writeShell(int radius, IPositionSink sink)
+	{
+		if (radius < 0)
 		{
-			for (int theta_n = 0; theta_n < steps; theta_n++)
+			return;
+		}
+
+		final long inner = Math.max(2L * radius - 1, 0) * Math.max(2L * radius - 1, 0);
+		final long outer = (2L * radius + 1) * (2L * radius + 1);
+
+		for (int x = 0; x <= radius; x++)
+		{
+			for (int z = 0; z <= radius; z++)
 			{
-				double phi = Math.PI * 2 / steps * phi_n;
-				double theta = Math.PI / steps * theta_n;
+				long column = 4L * ((long) x * x + (long) z * z);
+
+				if (column >= outer)
+				{
+					break;
+				}
 
-				Vector3 point = new Vector3(Math.sin(theta) * Math.cos(phi), Math.cos(theta), Math.sin(theta) * Math.sin(phi)).multiply(radius);
-				fieldBlocks.add(point);
+				int minY = inner > column ? (int) ceilSqrt((inner - column + 3) / 4) : 0;
+				int maxY = (int) floorSqrt((outer - column - 1) / 4);
+
+				for (int y = minY; y <= maxY; y++)
+				{
+					writeMirrored(sink, x, y, z);
+				}
 			}
 		}
+	}
 
-		return fieldBlocks;
+	private static void writeMirrored(IPositionSink sink, int x, int y, int z)
+	{
+		for (int signX = 1; signX >= (x == 0 ? 1 : -1); signX -= 2)
+		{
+			for (int signY = 1; signY >= (y == 0 ? 1 : -1); signY -= 2)
+			{
+				for (int signZ = 1; signZ >= (z == 0 ? 1 : -1); signZ -= 2)
+				{
+					sink.add(signX * x, signY * y, signZ * z);
+				}
+			}
+		}
+	}
+
+	private static long floorSqrt(long value)
+	{
+		long root = (long) Math.sqrt(value);
+
+		while (root * root > value)
+		{
+			root--;
+		}
+
+		while ((root + 1) * (root + 1) <= value)
+		{
+			root++;
+		}
+
+		return root;
+	}
+
+	private static long ceilSqrt(long value)
+	{
+		long root = floorSqrt(value);
+		return root * root < value ? root + 1 : root;
 	}
 
 	@Override
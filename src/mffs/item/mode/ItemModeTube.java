@@ -3,6 +3,7 @@ package mffs.item.mode;
 import java.util.HashSet;
 import java.util.Set;
 
+import mffs.api.IPositionSink;
 import mffs.api.IProjector;
 import mffs.render.model.ModelPlane;
 import net.minecraft.tileentity.TileEntity;
@@ -58,6 +59,42 @@ public class ItemModeTube extends ItemModeCube
 		return fieldBlocks;
 	}
 
+	/**
+	 * Writes the faces of the box that are not facing the projector's direction.
+	 */
+	@Override
+	public void writeExteriorPoints(IProjector projector, IPositionSink sink)
+	{
+		ForgeDirection direction = projector.getDirection(((TileEntity) projector).worldObj, ((TileEntity) projector).xCoord, ((TileEntity) projector).yCoord, ((TileEntity) projector).zCoord);
+		Vector3 posScale = projector.getPositiveScale();
+		Vector3 negScale = projector.getNegativeScale();
+		int minX = -negScale.intX(), minY = -negScale.intY(), minZ = -negScale.intZ();
+		int maxX = posScale.intX(), maxY = posScale.intY(), maxZ = posScale.intZ();
+
+		boolean hasXFaces = !(direction == ForgeDirection.WEST || direction == ForgeDirection.EAST);
+		boolean hasYFaces = !(direction == ForgeDirection.UP || direction == ForgeDirection.DOWN);
+		boolean hasZFaces = !(direction == ForgeDirection.NORTH || direction == ForgeDirection.SOUTH);
+
+		for (int x = minX; x <= maxX; x++)
+		{
+			for (int z = minZ; z <= maxZ; z++)
+			{
+				if ((hasXFaces && (x == minX || x == maxX)) || (hasZFaces && (z == minZ || z == maxZ)))
+				{
+					for (int y = minY; y <= maxY; y++)
+					{
+						sink.add(x, y, z);
+					}
+				}
+				else if (hasYFaces)
+				{
+					sink.add(x, minY, z);
+					sink.add(x, maxY, z);
+				}
+			}
+		}
+	}
+
 	@SideOnly(Side.CLIENT)
 	@Override
 	public void render(IProjector projector, double x, double y, double z, float f, long ticks)
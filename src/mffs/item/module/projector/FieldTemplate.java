@@ -0,0 +1,203 @@
+package mffs.item.module.projector;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import mffs.api.PositionSet;
+import universalelectricity.core.vector.Vector3;
+
+/**
+ * The saved structure of a custom mode. Positions are relative to the field center, packed into
+ * longs and sorted so they can be binary searched. The block ID and metadata of each position
+ * are packed into a parallel int array. Templates are immutable and shared by every projector
+ * using the same mode ID.
+ *
+ * @author Calclavia
+ *
+ */
+public class FieldTemplate
+{
+	public static final FieldTemplate EMPTY = new FieldTemplate(new long[0], new int[0]);
+
+	private final long[] positions;
+	private final int[] blocks;
+
+	private FieldTemplate(long[] positions, int[] blocks)
+	{
+		this.positions = positions;
+		this.blocks = blocks;
+	}
+
+	/**
+	 * @return A template of positions that are already sorted and distinct.
+	 */
+	static FieldTemplate of(long[] positions, int[] blocks)
+	{
+		return new FieldTemplate(positions, blocks);
+	}
+
+	public int size()
+	{
+		return this.positions.length;
+	}
+
+	/**
+	 * @return The index of a relative position, or -1 if the template does not have it.
+	 */
+	public int indexOf(int x, int y, int z)
+	{
+		int index = Arrays.binarySearch(this.positions, PositionSet.pack(x, y, z));
+		return index >= 0 ? index : -1;
+	}
+
+	public long getPosition(int index)
+	{
+		return this.positions[index];
+	}
+
+	/**
+	 * @return The packed block ID and metadata.
+	 */
+	int getBlock(int index)
+	{
+		return this.blocks[index];
+	}
+
+	public int getBlockID(int index)
+	{
+		return this.blocks[index] >>> 16;
+	}
+
+	public int getBlockMetadata(int index)
+	{
+		return this.blocks[index] & 0xFFFF;
+	}
+
+	/**
+	 * @return A new set of the relative positions, which the caller may change.
+	 */
+	public Set<Vector3> toVectorSet()
+	{
+		Set<Vector3> set = new HashSet<Vector3>();
+
+		for (long position : this.positions)
+		{
+			set.add(PositionSet.toVector(position));
+		}
+
+		return set;
+	}
+
+	/**
+	 * @return The approximate heap size of this template, in bytes.
+	 */
+	public long getMemoryUsage()
+	{
+		return 64 + this.positions.length * 8L + this.blocks.length * 4L;
+	}
+
+	public static class Builder
+	{
+		private long[] positions;
+		private int[] blocks;
+		private int size = 0;
+
+		public Builder()
+		{
+			this(16);
+		}
+
+		public Builder(int expectedSize)
+		{
+			this.positions = new long[Math.max(expectedSize, 1)];
+			this.blocks = new int[this.positions.length];
+		}
+
+		/**
+		 * Adds a position. If a position is added twice, the last block wins.
+		 */
+		public Builder add(int x, int y, int z, int blockID, int metadata)
+		{
+			if (this.size >= this.positions.length)
+			{
+				this.positions = Arrays.copyOf(this.positions, this.size * 2);
+				this.blocks = Arrays.copyOf(this.blocks, this.size * 2);
+			}
+
+			this.positions[this.size] = PositionSet.pack(x, y, z);
+			this.blocks[this.size] = (blockID << 16) | (metadata & 0xFFFF);
+			this.size++;
+			return this;
+		}
+
+		public FieldTemplate build()
+		{
+			long[] positions = Arrays.copyOf(this.positions, this.size);
+			int[] blocks = Arrays.copyOf(this.blocks, this.size);
+			sort(positions, blocks, new long[this.size], new int[this.size], 0, this.size);
+
+			/**
+			 * Remove duplicates, keeping the last of each. The sort is stable so that is the one
+			 * added last.
+			 */
+			int count = 0;
+
+			for (int i = 0; i < positions.length; i++)
+			{
+				if (count > 0 && positions[count - 1] == positions[i])
+				{
+					blocks[count - 1] = blocks[i];
+				}
+				else
+				{
+					positions[count] = positions[i];
+					blocks[count] = blocks[i];
+					count++;
+				}
+			}
+
+			return new FieldTemplate(Arrays.copyOf(positions, count), Arrays.copyOf(blocks, count));
+		}
+
+		/**
+		 * A stable merge sort of the positions that moves the blocks along with them.
+		 */
+		private static void sort(long[] positions, int[] blocks, long[] tempPositions, int[] tempBlocks, int from, int to)
+		{
+			if (to - from < 2)
+			{
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			sort(positions, blocks, tempPositions, tempBlocks, from, middle);
+			sort(positions, blocks, tempPositions, tempBlocks, middle, to);
+
+			if (positions[middle - 1] <= positions[middle])
+			{
+				return;
+			}
+
+			System.arraycopy(positions, from, tempPositions, from, to - from);
+			System.arraycopy(blocks, from, tempBlocks, from, to - from);
+
+			int left = from;
+			int right = middle;
+
+			for (int i = from; i < to; i++)
+			{
+				if (right >= to || (left < middle && tempPositions[left] <= tempPositions[right]))
+				{
+					positions[i] = tempPositions[left];
+					blocks[i] = tempBlocks[left++];
+				}
+				else
+				{
+					positions[i] = tempPositions[right];
+					blocks[i] = tempBlocks[right++];
+				}
+			}
+		}
+	}
+}
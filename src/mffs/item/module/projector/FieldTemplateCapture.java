@@ -0,0 +1,320 @@
+package mffs.item.module.projector;
+
+import java.io.File;
+import java.io.IOException;
+
+import mffs.DelayedEvent;
+import mffs.MFFSHelper;
+import mffs.ModularForceFieldSystem;
+import mffs.ServerTickHandler;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.ItemStack;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraftforge.common.DimensionManager;
+
+/**
+ * Captures the blocks of a region into a custom mode template without stalling the server.
+ *
+ * The region is read on the server thread straight from the chunks, up to a fixed amount of
+ * blocks per tick. Chunks that are not loaded are skipped rather than loaded or generated. The
+ * template is then sorted and written to disk on the writer thread, and the player is told once it
+ * is saved.
+ *
+ * @author Calclavia
+ *
+ */
+public class FieldTemplateCapture extends DelayedEvent
+{
+	/**
+	 * How many blocks are read per tick. At least one block column is read each tick.
+	 */
+	public static final int BLOCKS_PER_TICK = 65536;
+
+	/**
+	 * Captures of more chunks than this report their progress.
+	 */
+	private static final int PROGRESS_REPORT_CHUNKS = 64;
+
+	private final World world;
+	private final EntityPlayer player;
+	private final ItemStack itemStack;
+	private final String idTag;
+	private final String sizeTag;
+	private final FieldTemplateStore store;
+	private final File directory;
+	private final int modeID;
+
+	/**
+	 * The center of the region, and the region in world coordinates.
+	 */
+	private final int centerX, centerY, centerZ;
+	private final int minX, minY, minZ, maxX, maxY, maxZ;
+	private final int[] min, max;
+
+	private final int minChunkX, minChunkZ, maxChunkX, maxChunkZ;
+	private final int totalChunks;
+	private int chunkX, chunkZ;
+
+	/**
+	 * The index of the next block column to read in the current chunk.
+	 */
+	private int column = 0;
+
+	private int chunksRead = 0;
+	private int chunksSkipped = 0;
+	private int reportedPercent = 0;
+
+	private final FieldTemplate.Builder builder = new FieldTemplate.Builder();
+
+	/**
+	 * @param min - The lowest corner of the region, relative to the center.
+	 * @param max - The highest corner of the region, relative to the center.
+	 * @param idTag - The NBT tag of the item that holds the mode ID.
+	 * @param sizeTag - The NBT tag of the item that gets the amount of blocks saved.
+	 */
+	public FieldTemplateCapture(World world, EntityPlayer player, ItemStack itemStack, String idTag, String sizeTag, FieldTemplateStore store, File directory, int modeID, int centerX, int centerY, int centerZ, int[] min, int[] max)
+	{
+		super(1);
+		this.world = world;
+		this.player = player;
+		this.itemStack = itemStack;
+		this.idTag = idTag;
+		this.sizeTag = sizeTag;
+		this.store = store;
+		this.directory = directory;
+		this.modeID = modeID;
+		this.centerX = centerX;
+		this.centerY = centerY;
+		this.centerZ = centerZ;
+		this.min = min.clone();
+		this.max = max.clone();
+		this.minX = centerX + min[0];
+		this.minY = Math.max(centerY + min[1], 0);
+		this.minZ = centerZ + min[2];
+		this.maxX = centerX + max[0];
+		this.maxY = Math.min(centerY + max[1], world.getHeight() - 1);
+		this.maxZ = centerZ + max[2];
+		this.minChunkX = this.minX >> 4;
+		this.minChunkZ = this.minZ >> 4;
+		this.maxChunkX = this.maxX >> 4;
+		this.maxChunkZ = this.maxZ >> 4;
+		this.totalChunks = (this.maxChunkX - this.minChunkX + 1) * (this.maxChunkZ - this.minChunkZ + 1);
+		this.chunkX = this.minChunkX;
+		this.chunkZ = this.minChunkZ;
+	}
+
+	public void start()
+	{
+		if (this.totalChunks > PROGRESS_REPORT_CHUNKS)
+		{
+			this.player.addChatMessage("Capturing field structure of " + this.totalChunks + " chunks...");
+		}
+
+		ServerTickHandler.schedule(this);
+	}
+
+	@Override
+	protected void onEvent()
+	{
+		/**
+		 * The world may have unloaded since the last tick, with its chunks.
+		 */
+		if (DimensionManager.getWorld(this.world.provider.dimensionId) != this.world)
+		{
+			this.player.addChatMessage("Field structure capture cancelled, the world was unloaded.");
+			return;
+		}
+
+		IChunkProvider chunkProvider = this.world.getChunkProvider();
+		int budget = BLOCKS_PER_TICK;
+
+		while (budget > 0 && this.chunkZ <= this.maxChunkZ)
+		{
+			/**
+			 * A chunk may also unload between two ticks of reading it.
+			 */
+			if (!chunkProvider.chunkExists(this.chunkX, this.chunkZ))
+			{
+				this.chunksSkipped++;
+				this.nextChunk();
+				continue;
+			}
+
+			budget -= this.readChunk(this.world.getChunkFromChunkCoords(this.chunkX, this.chunkZ), budget);
+		}
+
+		if (this.chunkZ <= this.maxChunkZ)
+		{
+			this.reportProgress();
+			this.ticks = 1;
+		}
+		else
+		{
+			if (this.chunksSkipped > 0)
+			{
+				this.player.addChatMessage("Skipped " + this.chunksSkipped + " chunks that were not loaded.");
+			}
+
+			this.write();
+		}
+	}
+
+	@Override
+	protected void onCancel()
+	{
+		ModularForceFieldSystem.LOGGER.warning("Capture of custom mode " + this.modeID + " was cancelled as the server stopped.");
+	}
+
+	/**
+	 * Reads block columns of the chunk from where the last read stopped, until the chunk is done
+	 * or the budget is used up.
+	 *
+	 * @return The amount of blocks read.
+	 */
+	private int readChunk(Chunk chunk, int budget)
+	{
+		int startX = Math.max(this.minX, chunk.xPosition << 4);
+		int endX = Math.min(this.maxX, (chunk.xPosition << 4) + 15);
+		int startZ = Math.max(this.minZ, chunk.zPosition << 4);
+		int endZ = Math.min(this.maxZ, (chunk.zPosition << 4) + 15);
+		int depth = endZ - startZ + 1;
+		int columns = (endX - startX + 1) * depth;
+		int blocksRead = 0;
+
+		while (this.column < columns && (blocksRead == 0 || blocksRead < budget))
+		{
+			int x = startX + this.column / depth;
+			int z = startZ + this.column % depth;
+
+			for (int y = this.minY; y <= this.maxY; y++)
+			{
+				int blockID = chunk.getBlockID(x & 15, y, z & 15);
+
+				if (blockID > 0)
+				{
+					this.builder.add(x - this.centerX, y - this.centerY, z - this.centerZ, blockID, chunk.getBlockMetadata(x & 15, y, z & 15));
+				}
+			}
+
+			blocksRead += Math.max(this.maxY - this.minY + 1, 1);
+			this.column++;
+		}
+
+		if (this.column >= columns)
+		{
+			this.nextChunk();
+		}
+
+		return blocksRead;
+	}
+
+	private void nextChunk()
+	{
+		this.column = 0;
+		this.chunksRead++;
+
+		if (++this.chunkX > this.maxChunkX)
+		{
+			this.chunkX = this.minChunkX;
+			this.chunkZ++;
+		}
+	}
+
+	private void reportProgress()
+	{
+		if (this.totalChunks > PROGRESS_REPORT_CHUNKS)
+		{
+			int percent = this.chunksRead * 100 / this.totalChunks / 25 * 25;
+
+			if (percent > this.reportedPercent)
+			{
+				this.reportedPercent = percent;
+				this.player.addChatMessage("Capturing field structure: " + percent + "%");
+			}
+		}
+	}
+
+	/**
+	 * Sorts and writes the template on the writer thread, then finishes on the server thread.
+	 */
+	private void write()
+	{
+		FieldTemplateStore.write(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				final FieldTemplate template = FieldTemplateCapture.this.builder.build();
+				IOException error = null;
+
+				try
+				{
+					FieldTemplateFormat.write(FieldTemplateStore.getFile(FieldTemplateCapture.this.directory, FieldTemplateCapture.this.modeID), template);
+					FieldTemplateCapture.this.store.put(FieldTemplateCapture.this.modeID, template);
+					FieldTemplateCapture.this.store.getIndex(FieldTemplateCapture.this.directory).put(FieldTemplateCapture.this.modeID, new FieldTemplateIndex.Entry(template.size(), FieldTemplateCapture.this.min, FieldTemplateCapture.this.max, FieldTemplateCapture.this.player.username));
+				}
+				catch (IOException e)
+				{
+					error = e;
+				}
+
+				final IOException writeError = error;
+
+				ServerTickHandler.schedule(new DelayedEvent(0)
+				{
+					@Override
+					protected void onEvent()
+					{
+						FieldTemplateCapture.this.finish(template, writeError);
+					}
+				});
+			}
+		});
+	}
+
+	private void finish(FieldTemplate template, IOException error)
+	{
+		if (error != null)
+		{
+			ModularForceFieldSystem.LOGGER.severe("Failed to save custom mode " + this.modeID + ": " + error.getMessage());
+			this.player.addChatMessage("Failed to save field structure.");
+			return;
+		}
+
+		ItemStack itemStack = this.findItemStack();
+
+		if (itemStack != null)
+		{
+			MFFSHelper.getNBTTagCompound(itemStack).setInteger(this.sizeTag, template.size());
+		}
+
+		this.player.addChatMessage("Field structure saved.");
+	}
+
+	/**
+	 * @return The custom mode item of this capture if the player still carries it, or null.
+	 */
+	private ItemStack findItemStack()
+	{
+		if (this.player.isDead)
+		{
+			return null;
+		}
+
+		ItemStack[] inventory = this.player.inventory.mainInventory;
+
+		for (int i = 0; i < inventory.length; i++)
+		{
+			ItemStack itemStack = inventory[i];
+
+			if (itemStack != null && itemStack.itemID == this.itemStack.itemID && itemStack.hasTagCompound() && itemStack.getTagCompound().getInteger(this.idTag) == this.modeID)
+			{
+				return itemStack;
+			}
+		}
+
+		return null;
+	}
+}
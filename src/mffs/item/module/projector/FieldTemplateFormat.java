@@ -0,0 +1,218 @@
+package mffs.item.module.projector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The binary file format of field templates.
+ *
+ * A file starts with the magic number and a version byte, followed by the deflated body. The body
+ * has the amount of positions, then the sorted packed positions, each as the unsigned difference
+ * to the previous one, and then the block ID and metadata as runs of equal values. All numbers in
+ * the body are variable length, seven bits per byte.
+ *
+ * @author Calclavia
+ *
+ */
+public class FieldTemplateFormat
+{
+	public static final String FILE_EXTENSION = ".mfft";
+	public static final int MAGIC = 0x4D464654;
+	public static final int VERSION = 1;
+
+	public static void write(File file, FieldTemplate template) throws IOException
+	{
+		File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+		OutputStream out = new FileOutputStream(tempFile);
+
+		try
+		{
+			write(out, template);
+		}
+		finally
+		{
+			out.close();
+		}
+
+		if (file.exists() && !file.delete())
+		{
+			throw new IOException("Failed to replace " + file);
+		}
+
+		if (!tempFile.renameTo(file))
+		{
+			throw new IOException("Failed to rename " + tempFile + " to " + file);
+		}
+	}
+
+	public static void write(OutputStream out, FieldTemplate template) throws IOException
+	{
+		DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeByte(VERSION);
+		header.flush();
+
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+		try
+		{
+			DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater);
+			DataOutputStream data = new DataOutputStream(new BufferedOutputStream(deflated));
+			int size = template.size();
+			writeVarLong(data, size);
+
+			long previous = 0;
+
+			for (int i = 0; i < size; i++)
+			{
+				long position = template.getPosition(i);
+				writeVarLong(data, position - previous);
+				previous = position;
+			}
+
+			for (int i = 0; i < size;)
+			{
+				int block = template.getBlock(i);
+				int run = 1;
+
+				while (i + run < size && template.getBlock(i + run) == block)
+				{
+					run++;
+				}
+
+				writeVarLong(data, run);
+				writeVarLong(data, block & 0xFFFFFFFFL);
+				i += run;
+			}
+
+			data.flush();
+			deflated.finish();
+		}
+		finally
+		{
+			deflater.end();
+		}
+	}
+
+	public static FieldTemplate read(File file) throws IOException
+	{
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+
+		try
+		{
+			return read(in);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Streams a template in, without holding the compressed or the decompressed file in memory.
+	 */
+	public static FieldTemplate read(InputStream in) throws IOException
+	{
+		DataInputStream header = new DataInputStream(in);
+
+		if (header.readInt() != MAGIC)
+		{
+			throw new IOException("Not a field template");
+		}
+
+		int version = header.readUnsignedByte();
+
+		if (version != VERSION)
+		{
+			throw new IOException("Unsupported field template version " + version);
+		}
+
+		DataInputStream data = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in)));
+		long size = readVarLong(data);
+
+		if (size < 0 || size > Integer.MAX_VALUE)
+		{
+			throw new IOException("Invalid field template size " + size);
+		}
+
+		long[] positions = new long[(int) size];
+		int[] blocks = new int[(int) size];
+		long previous = 0;
+
+		for (int i = 0; i < size; i++)
+		{
+			previous += readVarLong(data);
+			positions[i] = previous;
+
+			if (i > 0 && positions[i] <= positions[i - 1])
+			{
+				throw new IOException("Field template positions are not sorted");
+			}
+		}
+
+		for (int i = 0; i < size;)
+		{
+			long run = readVarLong(data);
+			int block = (int) readVarLong(data);
+
+			if (run <= 0 || i + run > size)
+			{
+				throw new IOException("Invalid block run " + run);
+			}
+
+			for (int end = (int) (i + run); i < end; i++)
+			{
+				blocks[i] = block;
+			}
+		}
+
+		return FieldTemplate.of(positions, blocks);
+	}
+
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException
+	{
+		while ((value & ~0x7FL) != 0)
+		{
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException
+	{
+		long value = 0;
+
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			int b = in.read();
+
+			if (b < 0)
+			{
+				throw new EOFException();
+			}
+
+			value |= (long) (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+
+		throw new IOException("Malformed variable length number");
+	}
+}
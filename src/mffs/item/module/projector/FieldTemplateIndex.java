@@ -0,0 +1,301 @@
+package mffs.item.module.projector;
+
+import java.io.File;
+import java.util.Arrays;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import universalelectricity.prefab.flag.NBTFileLoader;
+
+/**
+ * The index of the custom modes of a save. It holds the next free mode ID and what is known about
+ * each saved template. Mode IDs count up from one, so entries are stored in an array indexed by
+ * mode ID.
+ *
+ * IDs are reserved in blocks, and only the end of the reserved block is written right away, to a
+ * small counter file of its own. The entries are written later on the custom mode writer thread.
+ *
+ * @author Calclavia
+ *
+ */
+public class FieldTemplateIndex
+{
+	private static final String INDEX_FILE = "custom_mode_index";
+	private static final String COUNTER_FILE = "custom_mode_counter";
+	private static final String NBT_NEXT_ID = "nextID";
+	private static final String NBT_RESERVED_ID = "reservedID";
+
+	/**
+	 * How many IDs are reserved each time the counter file is written.
+	 */
+	private static final int ID_BLOCK_SIZE = 64;
+	private static final String NBT_ENTRIES = "entries";
+	private static final String NBT_ID = "id";
+	private static final String NBT_SIZE = "size";
+	private static final String NBT_MIN = "min";
+	private static final String NBT_MAX = "max";
+	private static final String NBT_CREATOR = "creator";
+
+	private final File directory;
+	private int nextID = 1;
+
+	/**
+	 * IDs below this are reserved in the counter file.
+	 */
+	private int reservedID = 1;
+
+	private Entry[] entries = new Entry[16];
+	private boolean isSaveQueued = false;
+
+	private FieldTemplateIndex(File directory)
+	{
+		this.directory = directory;
+	}
+
+	/**
+	 * Loads the index of a save directory. Saves from before the index get their next ID from the
+	 * directory, which is only listed this once. IDs used to be the amount of files plus one, so
+	 * the next ID is kept above that too, as items may hold IDs that were never saved. IDs of a
+	 * reserved block may have been handed out before the server stopped, so the next ID starts
+	 * after the block.
+	 */
+	public static FieldTemplateIndex load(File directory)
+	{
+		FieldTemplateIndex index = new FieldTemplateIndex(directory);
+
+		NBTTagCompound nbt = new File(directory, INDEX_FILE + ".dat").exists() ? NBTFileLoader.loadData(directory, INDEX_FILE) : null;
+
+		if (nbt != null)
+		{
+			index.readFromNBT(nbt);
+		}
+		else
+		{
+			index.nextID = findFirstFreeID(directory);
+			index.saveLater();
+		}
+
+		NBTTagCompound counter = new File(directory, COUNTER_FILE + ".dat").exists() ? NBTFileLoader.loadData(directory, COUNTER_FILE) : null;
+
+		if (counter != null)
+		{
+			index.nextID = Math.max(index.nextID, counter.getInteger(NBT_RESERVED_ID));
+		}
+
+		index.reservedID = index.nextID;
+		return index;
+	}
+
+	/**
+	 * @return A new mode ID. A new block of IDs is reserved in the counter file when the current
+	 * one runs out, so an ID is never handed out twice.
+	 */
+	public synchronized int allocateID()
+	{
+		if (this.nextID >= this.reservedID)
+		{
+			this.reserve(this.nextID + ID_BLOCK_SIZE);
+		}
+
+		return this.nextID++;
+	}
+
+	/**
+	 * @return What is known about a mode, or null if it has no saved template.
+	 */
+	public synchronized Entry get(int modeID)
+	{
+		return modeID > 0 && modeID < this.entries.length ? this.entries[modeID] : null;
+	}
+
+	/**
+	 * Records a saved template. The index is saved later on the writer thread.
+	 */
+	public synchronized void put(int modeID, Entry entry)
+	{
+		if (modeID <= 0)
+		{
+			return;
+		}
+
+		if (modeID >= this.entries.length)
+		{
+			this.entries = Arrays.copyOf(this.entries, Math.max(modeID + 1, this.entries.length * 2));
+		}
+
+		this.entries[modeID] = entry;
+
+		if (modeID >= this.nextID)
+		{
+			this.nextID = modeID + 1;
+
+			if (this.nextID > this.reservedID)
+			{
+				this.reserve(this.nextID);
+			}
+		}
+
+		this.saveLater();
+	}
+
+	/**
+	 * Queues a save of the index on the writer thread, unless one is already queued.
+	 */
+	public synchronized void saveLater()
+	{
+		if (!this.isSaveQueued)
+		{
+			this.isSaveQueued = true;
+
+			FieldTemplateStore.write(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					FieldTemplateIndex.this.save();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Writes the index. The entries are copied under the lock, the file is written outside it.
+	 */
+	public void save()
+	{
+		NBTTagCompound nbt = new NBTTagCompound();
+
+		synchronized (this)
+		{
+			this.isSaveQueued = false;
+			this.writeToNBT(nbt);
+		}
+
+		NBTFileLoader.saveData(this.directory, INDEX_FILE, nbt);
+	}
+
+	private void reserve(int reservedID)
+	{
+		this.reservedID = reservedID;
+		NBTTagCompound nbt = new NBTTagCompound();
+		nbt.setInteger(NBT_RESERVED_ID, reservedID);
+		NBTFileLoader.saveData(this.directory, COUNTER_FILE, nbt);
+	}
+
+	private void readFromNBT(NBTTagCompound nbt)
+	{
+		this.nextID = Math.max(nbt.getInteger(NBT_NEXT_ID), 1);
+		NBTTagList list = nbt.getTagList(NBT_ENTRIES);
+
+		for (int i = 0; i < list.tagCount(); i++)
+		{
+			NBTTagCompound entryTag = (NBTTagCompound) list.tagAt(i);
+			int modeID = entryTag.getInteger(NBT_ID);
+
+			if (modeID > 0)
+			{
+				if (modeID >= this.entries.length)
+				{
+					this.entries = Arrays.copyOf(this.entries, Math.max(modeID + 1, this.entries.length * 2));
+				}
+
+				this.entries[modeID] = new Entry(entryTag.getInteger(NBT_SIZE), entryTag.getIntArray(NBT_MIN), entryTag.getIntArray(NBT_MAX), entryTag.getString(NBT_CREATOR));
+				this.nextID = Math.max(this.nextID, modeID + 1);
+			}
+		}
+	}
+
+	private void writeToNBT(NBTTagCompound nbt)
+	{
+		nbt.setInteger(NBT_NEXT_ID, this.nextID);
+		NBTTagList list = new NBTTagList();
+
+		for (int modeID = 1; modeID < this.entries.length; modeID++)
+		{
+			Entry entry = this.entries[modeID];
+
+			if (entry != null)
+			{
+				NBTTagCompound entryTag = new NBTTagCompound();
+				entryTag.setInteger(NBT_ID, modeID);
+				entryTag.setInteger(NBT_SIZE, entry.size);
+				entryTag.setIntArray(NBT_MIN, entry.min.clone());
+				entryTag.setIntArray(NBT_MAX, entry.max.clone());
+				entryTag.setString(NBT_CREATOR, entry.creator);
+				list.appendTag(entryTag);
+			}
+		}
+
+		nbt.setTag(NBT_ENTRIES, list);
+	}
+
+	private static int findFirstFreeID(File directory)
+	{
+		int highestID = 0;
+		File[] files = directory.listFiles();
+
+		if (files != null)
+		{
+			highestID = files.length;
+
+			for (File file : files)
+			{
+				String name = file.getName();
+
+				if (name.startsWith(FieldTemplateStore.NBT_FILE_SAVE_PREFIX))
+				{
+					int end = FieldTemplateStore.NBT_FILE_SAVE_PREFIX.length();
+
+					while (end < name.length() && Character.isDigit(name.charAt(end)))
+					{
+						end++;
+					}
+
+					if (end > FieldTemplateStore.NBT_FILE_SAVE_PREFIX.length() && end - FieldTemplateStore.NBT_FILE_SAVE_PREFIX.length() < 10)
+					{
+						highestID = Math.max(highestID, Integer.parseInt(name.substring(FieldTemplateStore.NBT_FILE_SAVE_PREFIX.length(), end)));
+					}
+				}
+			}
+		}
+
+		return highestID + 1;
+	}
+
+	/**
+	 * What is known about a saved template.
+	 */
+	public static class Entry
+	{
+		public final int size;
+
+		/**
+		 * The corners of the captured region, relative to its center.
+		 */
+		private final int[] min;
+		private final int[] max;
+
+		/**
+		 * The name of the player that saved the template.
+		 */
+		public final String creator;
+
+		public Entry(int size, int[] min, int[] max, String creator)
+		{
+			this.size = size;
+			this.min = min != null && min.length == 3 ? min.clone() : new int[3];
+			this.max = max != null && max.length == 3 ? max.clone() : new int[3];
+			this.creator = creator != null ? creator : "";
+		}
+
+		public int getMin(int axis)
+		{
+			return this.min[axis];
+		}
+
+		public int getMax(int axis)
+		{
+			return this.max[axis];
+		}
+	}
+}
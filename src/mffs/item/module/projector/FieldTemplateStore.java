@@ -0,0 +1,415 @@
+package mffs.item.module.projector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mffs.ModularForceFieldSystem;
+import mffs.Settings;
+import mffs.base.KeyedCache;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import universalelectricity.core.vector.Vector3;
+import universalelectricity.prefab.flag.NBTFileLoader;
+
+/**
+ * Holds the field templates of custom modes in memory. Templates are loaded from disk the first
+ * time a mode ID is used and shared from then on. They are saved in the binary format of
+ * FieldTemplateFormat. The least recently used templates are evicted
+ * when their total size is over the memory budget.
+ *
+ * @author Calclavia
+ *
+ */
+public class FieldTemplateStore
+{
+	private static final String NBT_FIELD_BLOCK_LIST = "fieldPoints";
+	private static final String NBT_FIELD_BLOCK_ID = "blockID";
+	private static final String NBT_FIELD_BLOCK_METADATA = "blockMetadata";
+	public static final String NBT_FILE_SAVE_PREFIX = "custom_mode_";
+
+	/**
+	 * How long a stopping server waits for the writer, in milliseconds.
+	 */
+	private static final long FLUSH_TIMEOUT = 60000;
+
+	/**
+	 * Writes templates and the index to disk, off the server and calculation threads.
+	 */
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(new ThreadFactory()
+	{
+		@Override
+		public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, "MFFS Custom Mode Writer");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	});
+
+	/**
+	 * Writes given to the writer that have not finished yet.
+	 */
+	private static final AtomicInteger PENDING_WRITES = new AtomicInteger();
+
+	private final KeyedCache<Integer, FieldTemplate> templates;
+
+	/**
+	 * The loads in progress, so each mode is loaded and converted by one thread only.
+	 */
+	private final Map<Integer, FutureTask<FieldTemplate>> loading = new HashMap<Integer, FutureTask<FieldTemplate>>();
+
+	/**
+	 * The index of the save directory in use, loaded on first use.
+	 */
+	private FieldTemplateIndex index;
+	private File indexDirectory;
+
+	public FieldTemplateStore(long memoryBudget)
+	{
+		this.templates = new KeyedCache<Integer, FieldTemplate>(memoryBudget)
+		{
+			@Override
+			protected long weigh(FieldTemplate template)
+			{
+				return template.getMemoryUsage();
+			}
+		};
+	}
+
+	/**
+	 * Runs a write on the writer thread.
+	 */
+	static void write(final Runnable write)
+	{
+		PENDING_WRITES.incrementAndGet();
+
+		WRITER.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					write.run();
+				}
+				finally
+				{
+					PENDING_WRITES.decrementAndGet();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Waits until the writer has finished every write, including writes queued by other writes.
+	 * Called when the server stops, as the writer is a daemon thread and dies with the server.
+	 *
+	 * @return False if the writes did not finish in time.
+	 */
+	public static boolean flush()
+	{
+		long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT;
+
+		while (PENDING_WRITES.get() > 0)
+		{
+			long remaining = deadline - System.currentTimeMillis();
+
+			if (remaining <= 0)
+			{
+				return false;
+			}
+
+			try
+			{
+				/**
+				 * The writer runs one write at a time in order, so this runs after every write
+				 * queued so far.
+				 */
+				WRITER.submit(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+					}
+				}).get(remaining, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return false;
+			}
+			catch (ExecutionException e)
+			{
+			}
+			catch (TimeoutException e)
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return The template of a mode, loading it if it is not in memory. Modes without a saved
+	 * field have an empty template. A mode is loaded by one thread at a time, other threads asking
+	 * for it meanwhile wait for that load.
+	 */
+	public FieldTemplate get(final File directory, final int modeID)
+	{
+		if (Settings.USE_CACHE)
+		{
+			FieldTemplate template = this.templates.get(modeID);
+
+			if (template != null)
+			{
+				return template;
+			}
+		}
+
+		FutureTask<FieldTemplate> task;
+		boolean isLoader = false;
+
+		synchronized (this.loading)
+		{
+			task = this.loading.get(modeID);
+
+			if (task == null)
+			{
+				/**
+				 * Another thread may have finished loading since the cache was checked.
+				 */
+				FieldTemplate template = Settings.USE_CACHE ? this.templates.get(modeID) : null;
+
+				if (template != null)
+				{
+					return template;
+				}
+
+				task = new FutureTask<FieldTemplate>(new Callable<FieldTemplate>()
+				{
+					@Override
+					public FieldTemplate call()
+					{
+						return load(directory, modeID);
+					}
+				});
+
+				this.loading.put(modeID, task);
+				isLoader = true;
+			}
+		}
+
+		if (isLoader)
+		{
+			task.run();
+			FieldTemplate template = getResult(task, modeID);
+
+			synchronized (this.loading)
+			{
+				/**
+				 * A template saved or invalidated during the load replaced this one.
+				 */
+				if (this.loading.get(modeID) == task)
+				{
+					if (Settings.USE_CACHE)
+					{
+						this.templates.put(modeID, template);
+					}
+
+					this.loading.remove(modeID);
+				}
+			}
+
+			return template;
+		}
+
+		return getResult(task, modeID);
+	}
+
+	private static FieldTemplate getResult(FutureTask<FieldTemplate> task, int modeID)
+	{
+		try
+		{
+			return task.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return FieldTemplate.EMPTY;
+		}
+		catch (ExecutionException e)
+		{
+			ModularForceFieldSystem.LOGGER.severe("Failed to load custom mode " + modeID + ": " + e.getCause());
+			return FieldTemplate.EMPTY;
+		}
+	}
+
+	/**
+	 * Drops a template from memory, so it is loaded again the next time it is used.
+	 */
+	public void invalidate(int modeID)
+	{
+		synchronized (this.loading)
+		{
+			this.loading.remove(modeID);
+			this.templates.remove(modeID);
+		}
+	}
+
+	public synchronized void clear()
+	{
+		synchronized (this.loading)
+		{
+			this.loading.clear();
+			this.templates.clear();
+		}
+
+		this.index = null;
+		this.indexDirectory = null;
+	}
+
+	/**
+	 * @return The custom mode index of a save directory.
+	 */
+	public synchronized FieldTemplateIndex getIndex(File directory)
+	{
+		if (this.index == null || !directory.equals(this.indexDirectory))
+		{
+			this.index = FieldTemplateIndex.load(directory);
+			this.indexDirectory = directory;
+		}
+
+		return this.index;
+	}
+
+	public KeyedCache<Integer, FieldTemplate> getCache()
+	{
+		return this.templates;
+	}
+
+	/**
+	 * Saves a template in the binary format and keeps it in memory.
+	 */
+	public void save(File directory, int modeID, FieldTemplate template) throws IOException
+	{
+		FieldTemplateFormat.write(getFile(directory, modeID), template);
+		this.put(modeID, template);
+	}
+
+	/**
+	 * Keeps a template that has already been saved in memory.
+	 */
+	public void put(int modeID, FieldTemplate template)
+	{
+		synchronized (this.loading)
+		{
+			this.loading.remove(modeID);
+
+			if (Settings.USE_CACHE)
+			{
+				this.templates.put(modeID, template);
+			}
+			else
+			{
+				this.templates.remove(modeID);
+			}
+		}
+	}
+
+	public static File getFile(File directory, int modeID)
+	{
+		return new File(directory, NBT_FILE_SAVE_PREFIX + modeID + FieldTemplateFormat.FILE_EXTENSION);
+	}
+
+	/**
+	 * @return The NBT file templates were saved in before the binary format.
+	 */
+	public static File getLegacyFile(File directory, int modeID)
+	{
+		return new File(directory, NBT_FILE_SAVE_PREFIX + modeID + ".dat");
+	}
+
+	/**
+	 * Loads a template from its binary file. Templates that only have a legacy NBT file are
+	 * converted to the binary format the first time they are loaded.
+	 */
+	private static FieldTemplate load(File directory, int modeID)
+	{
+		File file = getFile(directory, modeID);
+
+		if (file.exists())
+		{
+			try
+			{
+				return FieldTemplateFormat.read(file);
+			}
+			catch (IOException e)
+			{
+				ModularForceFieldSystem.LOGGER.severe("Failed to load custom mode " + modeID + ": " + e.getMessage());
+				return FieldTemplate.EMPTY;
+			}
+		}
+
+		File legacyFile = getLegacyFile(directory, modeID);
+
+		if (legacyFile.exists())
+		{
+			FieldTemplate template = loadLegacy(directory, modeID);
+
+			try
+			{
+				FieldTemplateFormat.write(file, template);
+				legacyFile.delete();
+				ModularForceFieldSystem.LOGGER.info("Converted custom mode " + modeID + " to the binary template format.");
+			}
+			catch (IOException e)
+			{
+				ModularForceFieldSystem.LOGGER.warning("Failed to convert custom mode " + modeID + ": " + e.getMessage());
+			}
+
+			return template;
+		}
+
+		return FieldTemplate.EMPTY;
+	}
+
+	private static FieldTemplate loadLegacy(File directory, int modeID)
+	{
+		NBTTagCompound nbt = NBTFileLoader.loadData(directory, NBT_FILE_SAVE_PREFIX + modeID);
+
+		if (nbt != null)
+		{
+			NBTTagList nbtTagList = nbt.getTagList(NBT_FIELD_BLOCK_LIST);
+			FieldTemplate.Builder builder = new FieldTemplate.Builder(nbtTagList.tagCount());
+
+			for (int i = 0; i < nbtTagList.tagCount(); i++)
+			{
+				NBTTagCompound vectorTag = (NBTTagCompound) nbtTagList.tagAt(i);
+				Vector3 position = Vector3.readFromNBT(vectorTag);
+
+				if (position != null)
+				{
+					position = position.round();
+					builder.add(position.intX(), position.intY(), position.intZ(), vectorTag.getInteger(NBT_FIELD_BLOCK_ID), vectorTag.getInteger(NBT_FIELD_BLOCK_METADATA));
+				}
+			}
+
+			return builder.build();
+		}
+
+		return FieldTemplate.EMPTY;
+	}
+}
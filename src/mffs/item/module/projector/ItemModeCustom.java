@@ -1,7 +1,6 @@
 package mffs.item.module.projector;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -10,14 +9,16 @@ import mffs.MFFSHelper;
 import mffs.ModularForceFieldSystem;
 import mffs.Settings;
 import mffs.api.ICache;
+import mffs.api.IPositionSink;
 import mffs.api.IProjector;
+import mffs.api.PositionSet;
 import mffs.api.modules.IProjectorMode;
+import mffs.api.modules.IProjectorModeKernel;
 import mffs.item.mode.ItemMode;
 import net.minecraft.client.gui.GuiScreen;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
-import net.minecraft.nbt.NBTTagList;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.world.World;
@@ -26,17 +27,22 @@ import universalelectricity.prefab.flag.NBTFileLoader;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
-public class ItemModeCustom extends ItemMode implements ICache
+public class ItemModeCustom extends ItemMode implements IProjectorModeKernel, ICache
 {
 	private static final String NBT_ID = "id";
 	private static final String NBT_POINT_1 = "point1";
 	private static final String NBT_POINT_2 = "point2";
-	private static final String NBT_FIELD_BLOCK_LIST = "fieldPoints";
-	private static final String NBT_FIELD_BLOCK_ID = "blockID";
-	private static final String NBT_FIELD_BLOCK_METADATA = "blockMetadata";
 	private static final String NBT_FIELD_SIZE = "fieldSize";
-	private static final String NBT_FILE_SAVE_PREFIX = "custom_mode_";
-	private final HashMap<String, Object> cache = new HashMap<String, Object>();
+
+	/**
+	 * Field templates shared by every projector, keyed by mode ID.
+	 */
+	private final FieldTemplateStore templates = new FieldTemplateStore(Settings.FIELD_TEMPLATE_MEMORY * 1024L * 1024L);
+
+	/**
+	 * The save directory of the running server, resolved on first use after the server starts.
+	 */
+	private volatile File saveDirectory;
 
 	public ItemModeCustom(int i)
 	{
@@ -117,40 +123,9 @@ public class ItemModeCustom extends ItemMode implements ICache
 							Vector3 minPoint = new Vector3(Math.min(point1.x, point2.x), Math.min(point1.y, point2.y), Math.min(point1.z, point2.z));
 							Vector3 maxPoint = new Vector3(Math.max(point1.x, point2.x), Math.max(point1.y, point2.y), Math.max(point1.z, point2.z));
 
-							NBTTagList list = new NBTTagList();
-
-							for (int x = minPoint.intX(); x <= maxPoint.intX(); x++)
-							{
-								for (int y = minPoint.intY(); y <= maxPoint.intY(); y++)
-								{
-									for (int z = minPoint.intZ(); z <= maxPoint.intZ(); z++)
-									{
-										Vector3 position = new Vector3(x, y, z);
-										Vector3 targetCheck = Vector3.add(midPoint, position);
-										int blockID = targetCheck.getBlockID(world);
-
-										if (blockID > 0)
-										{
-											NBTTagCompound vectorTag = new NBTTagCompound();
-											position.writeToNBT(vectorTag);
-											vectorTag.setInteger(NBT_FIELD_BLOCK_ID, blockID);
-											vectorTag.setInteger(NBT_FIELD_BLOCK_METADATA, targetCheck.getBlockMetadata(world));
-											list.appendTag(vectorTag);
-										}
-									}
-								}
-							}
-
-							NBTTagCompound saveNBT = new NBTTagCompound();
-							saveNBT.setTag(NBT_FIELD_BLOCK_LIST, list);
-
-							nbt.setInteger(NBT_FIELD_SIZE, list.tagCount());
-
-							NBTFileLoader.saveData(getSaveDirectory(), NBT_FILE_SAVE_PREFIX + getModeID(itemStack), saveNBT);
-
-							this.clearCache();
-
-							entityPlayer.addChatMessage("Field structure saved.");
+							int[] min = new int[] { minPoint.intX(), minPoint.intY(), minPoint.intZ() };
+							int[] max = new int[] { maxPoint.intX(), maxPoint.intY(), maxPoint.intZ() };
+							new FieldTemplateCapture(world, entityPlayer, itemStack, NBT_ID, NBT_FIELD_SIZE, this.templates, this.getSaveDirectory(), getModeID(itemStack), midPoint.intX(), midPoint.intY(), midPoint.intZ(), min, max).start();
 						}
 					}
 				}
@@ -196,110 +171,117 @@ public class ItemModeCustom extends ItemMode implements ICache
 
 		if (id <= 0)
 		{
-			nbt.setInteger(NBT_ID, getNextAvaliableID());
+			nbt.setInteger(NBT_ID, this.templates.getIndex(this.getSaveDirectory()).allocateID());
 			id = nbt.getInteger(NBT_ID);
 		}
 
 		return id;
 	}
 
-	public int getNextAvaliableID()
+	public File getSaveDirectory()
 	{
-		int i = 1;
+		File file = this.saveDirectory;
 
-		for (final File fileEntry : this.getSaveDirectory().listFiles())
+		if (file == null)
 		{
-			System.out.println(fileEntry.getName());
-			i++;
-		}
+			file = new File(NBTFileLoader.getSaveDirectory(MinecraftServer.getServer().getFolderName()), "mffs");
 
-		return i;
-	}
-
-	public File getSaveDirectory()
-	{
-		File file = new File(NBTFileLoader.getSaveDirectory(MinecraftServer.getServer().getFolderName()), "mffs");
+			if (!file.exists())
+			{
+				file.mkdir();
+			}
 
-		if (!file.exists())
-		{
-			file.mkdir();
+			this.saveDirectory = file;
 		}
 
 		return file;
 	}
 
+	/**
+	 * @return A new set of the relative positions of the mode's field.
+	 */
 	public Set<Vector3> getFieldBlocks(ItemStack itemStack)
 	{
-		return this.getFieldBlockMap(itemStack).keySet();
+		return this.getFieldTemplate(itemStack).toVectorSet();
+	}
+
+	/**
+	 * @return The field template of a mode, loaded from disk once per mode ID and shared.
+	 */
+	public FieldTemplate getFieldTemplate(ItemStack itemStack)
+	{
+		return this.templates.get(this.getSaveDirectory(), getModeID(itemStack));
 	}
 
-	@SuppressWarnings("unchecked")
-	public HashMap<Vector3, int[]> getFieldBlockMap(ItemStack itemStack)
+	public FieldTemplateStore getTemplateStore()
 	{
-		String cacheID = "itemStack_" + itemStack.hashCode();
+		return this.templates;
+	}
 
-		if (Settings.USE_CACHE)
+	/**
+	 * The template store is keyed by mode ID. These take the mode ID as a string and are kept for
+	 * compatibility.
+	 */
+	@Override
+	public Object getCache(String cacheID)
+	{
+		try
 		{
-			if (this.cache.containsKey(cacheID))
-			{
-				if (this.cache.get(cacheID) instanceof HashMap)
-				{
-					return (HashMap<Vector3, int[]>) this.cache.get(cacheID);
-				}
-			}
+			return this.templates.getCache().get(Integer.parseInt(cacheID));
 		}
-
-		final HashMap<Vector3, int[]> fieldBlocks = new HashMap<Vector3, int[]>();
-
-		NBTTagCompound nbt = NBTFileLoader.loadData(this.getSaveDirectory(), NBT_FILE_SAVE_PREFIX + getModeID(itemStack));
-
-		if (nbt != null)
+		catch (NumberFormatException e)
 		{
-			NBTTagList nbtTagList = nbt.getTagList(NBT_FIELD_BLOCK_LIST);
-
-			for (int i = 0; i < nbtTagList.tagCount(); i++)
-			{
-				NBTTagCompound vectorTag = (NBTTagCompound) nbtTagList.tagAt(i);
-				Vector3 position = Vector3.readFromNBT(vectorTag);
-				int[] blockInfo = new int[] { vectorTag.getInteger(NBT_FIELD_BLOCK_ID), vectorTag.getInteger(NBT_FIELD_BLOCK_METADATA) };
-
-				if (position != null)
-				{
-					fieldBlocks.put(position, blockInfo);
-				}
-			}
+			return null;
 		}
+	}
 
-		if (Settings.USE_CACHE)
+	@Override
+	public void clearCache(String cacheID)
+	{
+		try
 		{
-			this.cache.put(cacheID, fieldBlocks);
+			this.templates.invalidate(Integer.parseInt(cacheID));
 		}
+		catch (NumberFormatException e)
+		{
+		}
+	}
 
-		return fieldBlocks;
+	@Override
+	public void clearCache()
+	{
+		this.saveDirectory = null;
+		this.templates.clear();
 	}
 
 	@Override
-	public Object getCache(String cacheID)
+	public Set<Vector3> getExteriorPoints(IProjector projector)
 	{
-		return this.cache.get(cacheID);
+		return this.getFieldBlocks(projector.getModeStack());
 	}
 
 	@Override
-	public void clearCache(String cacheID)
+	public boolean isRotationInvariant()
 	{
-		this.cache.remove(cacheID);
+		return false;
 	}
 
 	@Override
-	public void clearCache()
+	public boolean isAxisRotatable()
 	{
-		this.cache.clear();
+		return true;
 	}
 
 	@Override
-	public Set<Vector3> getExteriorPoints(IProjector projector)
+	public void writeExteriorPoints(IProjector projector, IPositionSink sink)
 	{
-		return this.getFieldBlocks(projector.getModeStack());
+		FieldTemplate template = this.getFieldTemplate(projector.getModeStack());
+
+		for (int i = 0; i < template.size(); i++)
+		{
+			long position = template.getPosition(i);
+			sink.add(PositionSet.unpackX(position), PositionSet.unpackY(position), PositionSet.unpackZ(position));
+		}
 	}
 
 	@Override
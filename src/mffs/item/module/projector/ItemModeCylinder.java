@@ -3,7 +3,10 @@ package mffs.item.module.projector;
 import java.util.HashSet;
 import java.util.Set;
 
+import mffs.api.IPositionSink;
 import mffs.api.IProjector;
+import mffs.api.modules.IProjectorModeKernel;
+import mffs.base.RotationTransform;
 import mffs.item.mode.ItemMode;
 import mffs.render.model.ModelCube;
 import net.minecraft.tileentity.TileEntity;
@@ -11,7 +14,6 @@ import net.minecraft.tileentity.TileEntity;
 import org.lwjgl.opengl.GL11;
 
 import universalelectricity.core.vector.Vector3;
-import calclavia.lib.CalculationHelper;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -21,7 +23,7 @@ import cpw.mods.fml.relauncher.SideOnly;
  * @author Calclavia, Thutmose
  * 
  */
-public class ItemModeCylinder extends ItemMode
+public class ItemModeCylinder extends ItemMode implements IProjectorModeKernel
 {
 	private static final int RADIUS_Expansion = 0;
 
@@ -62,6 +64,52 @@ public class ItemModeCylinder extends ItemMode
 		return fieldBlocks;
 	}
 
+	@Override
+	public boolean isRotationInvariant()
+	{
+		return false;
+	}
+
+	@Override
+	public boolean isAxisRotatable()
+	{
+		return true;
+	}
+
+	@Override
+	public void writeExteriorPoints(IProjector projector, IPositionSink sink)
+	{
+		final Vector3 posScale = projector.getPositiveScale();
+		final Vector3 negScale = projector.getNegativeScale();
+
+		int radius = (posScale.intX() + negScale.intX() + posScale.intZ() + negScale.intZ()) / 2;
+		int height = posScale.intY() + negScale.intY();
+
+		for (int x = -radius; x <= radius; x++)
+		{
+			for (int z = -radius; z <= radius; z++)
+			{
+				int distance = x * x + z * z + RADIUS_Expansion;
+
+				if (distance <= radius * radius)
+				{
+					if (distance >= (radius - 1) * (radius - 1))
+					{
+						for (int y = 0; y < height; y++)
+						{
+							sink.add(x, y, z);
+						}
+					}
+					else if (height > 0)
+					{
+						sink.add(x, 0, z);
+						sink.add(x, height - 1, z);
+					}
+				}
+			}
+		}
+	}
+
 	@Override
 	public Set<Vector3> getInteriorPoints(IProjector projector)
 	{
@@ -106,7 +154,7 @@ public class ItemModeCylinder extends ItemMode
 		projectorPos.add(projector.getTranslation());
 
 		Vector3 relativePosition = position.clone().subtract(projectorPos);
-		CalculationHelper.rotateByAngle(relativePosition, -projector.getRotationYaw(), -projector.getRotationPitch());
+		RotationTransform.get(projector).inverseTransform(relativePosition);
 
 		if (relativePosition.x * relativePosition.x + relativePosition.z * relativePosition.z + RADIUS_Expansion <= radius * radius)
 		{
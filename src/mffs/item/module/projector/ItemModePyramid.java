@@ -3,7 +3,10 @@ package mffs.item.module.projector;
 import java.util.HashSet;
 import java.util.Set;
 
+import mffs.api.IPositionSink;
 import mffs.api.IProjector;
+import mffs.api.modules.IProjectorModeKernel;
+import mffs.base.RotationTransform;
 import mffs.item.mode.ItemMode;
 import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.tileentity.TileEntity;
@@ -12,11 +15,10 @@ import org.lwjgl.opengl.GL11;
 
 import universalelectricity.core.vector.Vector3;
 import universalelectricity.prefab.vector.Region3;
-import calclavia.lib.CalculationHelper;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
-public class ItemModePyramid extends ItemMode
+public class ItemModePyramid extends ItemMode implements IProjectorModeKernel
 {
 	public ItemModePyramid(int i)
 	{
@@ -74,6 +76,77 @@ public class ItemModePyramid extends ItemMode
 		return fieldBlocks;
 	}
 
+	@Override
+	public boolean isRotationInvariant()
+	{
+		return false;
+	}
+
+	/**
+	 * The planes are tested on half block steps and rounded before they are written. Rounding
+	 * halves is not symmetric, so the rotated blocks would be off by one.
+	 */
+	@Override
+	public boolean isAxisRotatable()
+	{
+		return false;
+	}
+
+	/**
+	 * The planes are tested on the same half block steps as getExteriorPoints, with the same
+	 * float arithmetic, and written rounded to blocks.
+	 */
+	@Override
+	public void writeExteriorPoints(IProjector projector, IPositionSink sink)
+	{
+		final Vector3 posScale = projector.getPositiveScale();
+		final Vector3 negScale = projector.getNegativeScale();
+
+		final int xStretch = posScale.intX() + negScale.intX();
+		final int yStretch = posScale.intY() + negScale.intY();
+		final int zStretch = posScale.intZ() + negScale.intZ();
+		final int yTranslation = -negScale.intY();
+
+		final int inverseThickness = 8;
+
+		for (float y = 0; y <= yStretch; y += 0.5f)
+		{
+			int blockY = Math.round(y) + yTranslation;
+			double yTest = (y / yStretch) * inverseThickness;
+
+			for (float x = -xStretch; x <= xStretch; x += 0.5f)
+			{
+				int blockX = Math.round(x);
+
+				for (float z = -zStretch; z <= zStretch; z += 0.5f)
+				{
+					double xzPositivePlane = (1 - (x / xStretch) - (z / zStretch)) * inverseThickness;
+					double xzNegativePlane = (1 + (x / xStretch) - (z / zStretch)) * inverseThickness;
+
+					// Positive Positive Plane
+					if (x >= 0 && z >= 0 && Math.round(xzPositivePlane) == Math.round(yTest))
+					{
+						sink.add(blockX, blockY, Math.round(z));
+						sink.add(blockX, blockY, Math.round(-z));
+					}
+
+					// Negative Positive Plane
+					if (x <= 0 && z >= 0 && Math.round(xzNegativePlane) == Math.round(yTest))
+					{
+						sink.add(blockX, blockY, Math.round(-z));
+						sink.add(blockX, blockY, Math.round(z));
+					}
+
+					// Ground Level Plane
+					if (y == 0 && (Math.abs(x) + Math.abs(z)) < (xStretch + yStretch) / 2)
+					{
+						sink.add(blockX, blockY, Math.round(z));
+					}
+				}
+			}
+		}
+	}
+
 	@Override
 	public Set<Vector3> getInteriorPoints(IProjector projector)
 	{
@@ -121,7 +194,7 @@ public class ItemModePyramid extends ItemMode
 		projectorPos.add(new Vector3(0, -negScale.intY() + 1, 0));
 
 		Vector3 relativePosition = position.clone().subtract(projectorPos);
-		CalculationHelper.rotateByAngle(relativePosition, -projector.getRotationYaw(), -projector.getRotationPitch());
+		RotationTransform.get(projector).inverseTransform(relativePosition);
 
 		Region3 region = new Region3(negScale.multiply(-1), posScale);
 
@@ -1,16 +1,16 @@
 package mffs.item.module.projector;
 
-import icbm.api.IBlockFrequency;
-
 import java.util.Iterator;
 import java.util.Set;
 
+import mffs.api.FieldOccupancy;
 import mffs.api.IProjector;
 import mffs.api.fortron.IFortronFrequency;
 import mffs.base.TileEntityBase;
-import mffs.fortron.FrequencyGrid;
 import mffs.item.module.ItemModule;
+import mffs.tileentity.FieldBoundsIndex;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
 import universalelectricity.core.vector.Vector3;
 
 public class ItemModuleFusion extends ItemModule
@@ -25,31 +25,45 @@ public class ItemModuleFusion extends ItemModule
 	@Override
 	public boolean onProject(IProjector projector, Set<Vector3> fieldBlocks)
 	{
-		Set<IBlockFrequency> machines = FrequencyGrid.instance().get(((IFortronFrequency) projector).getFrequency());
+		World world = ((TileEntity) projector).worldObj;
+		int frequency = ((IFortronFrequency) projector).getFrequency();
 
-		for (IBlockFrequency compareProjector : machines)
+		/**
+		 * Only projectors whose field box overlaps this one can share blocks with it.
+		 */
+		for (IProjector compareProjector : FieldBoundsIndex.get(world).getOverlappingProjectors(projector))
 		{
-			if (compareProjector instanceof IProjector && compareProjector != projector)
+			if (compareProjector != projector && compareProjector instanceof IFortronFrequency && ((IFortronFrequency) compareProjector).getFrequency() == frequency)
 			{
-				if (((TileEntity) compareProjector).worldObj == ((TileEntity) projector).worldObj)
+				if (((TileEntityBase) compareProjector).isActive() && compareProjector.getMode() != null)
 				{
-					if (((TileEntityBase) compareProjector).isActive() && ((IProjector) compareProjector).getMode() != null)
+					FieldOccupancy compareOccupancy = compareProjector.getOccupancy();
+					Iterator<Vector3> it = fieldBlocks.iterator();
+
+					while (it.hasNext())
 					{
-						Iterator<Vector3> it = fieldBlocks.iterator();
+						Vector3 position = it.next();
 
-						while (it.hasNext())
+						boolean isInField;
+
+						if (compareOccupancy != null)
+						{
+							isInField = compareOccupancy.isInField(position.intX(), position.intY(), position.intZ());
+						}
+						else
 						{
-							Vector3 position = it.next();
+							isInField = compareProjector.getMode().isInField(compareProjector, position.clone());
+						}
 
-							if (((IProjector) compareProjector).getMode().isInField((IProjector) compareProjector, position.clone()))
-							{
-								it.remove();
-							}
+						if (isInField)
+						{
+							it.remove();
 						}
 					}
 				}
 			}
 		}
+
 		return false;
 	}
 }
\ No newline at end of file
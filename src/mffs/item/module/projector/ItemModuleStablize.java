@@ -1,10 +1,10 @@
 package mffs.item.module.projector;
 
-import java.util.HashMap;
 import java.util.Set;
 
 import mffs.ModularForceFieldSystem;
 import mffs.api.IProjector;
+import mffs.base.RotationTransform;
 import mffs.base.TileEntityBase.TilePacketType;
 import mffs.item.module.ItemModule;
 import net.minecraft.inventory.IInventory;
@@ -15,7 +15,6 @@ import net.minecraftforge.common.ForgeDirection;
 import universalelectricity.core.vector.Vector3;
 import universalelectricity.core.vector.VectorHelper;
 import universalelectricity.prefab.network.PacketManager;
-import calclavia.lib.CalculationHelper;
 
 public class ItemModuleStablize extends ItemModule
 {
@@ -38,17 +37,19 @@ public class ItemModuleStablize extends ItemModule
 	@Override
 	public int onProject(IProjector projector, Vector3 position)
 	{
-		int[] blockInfo = null;
+		FieldTemplate template = null;
+		int index = -1;
 
 		if (projector.getTicks() % 40 == 0)
 		{
 			if (projector.getMode() instanceof ItemModeCustom)
 			{
-				HashMap<Vector3, int[]> fieldBlocks = ((ItemModeCustom) projector.getMode()).getFieldBlockMap(projector.getModeStack());
+				template = ((ItemModeCustom) projector.getMode()).getFieldTemplate(projector.getModeStack());
 				Vector3 fieldCenter = new Vector3((TileEntity) projector).add(projector.getTranslation());
 				Vector3 relativePosition = position.clone().subtract(fieldCenter);
-				CalculationHelper.rotateByAngle(relativePosition, -projector.getRotationYaw(), -projector.getRotationPitch());
-				blockInfo = fieldBlocks.get(relativePosition.round());
+				RotationTransform.get(projector).inverseTransform(relativePosition);
+				relativePosition = relativePosition.round();
+				index = template.indexOf(relativePosition.intX(), relativePosition.intY(), relativePosition.intZ());
 			}
 
 			// Search nearby inventories to extract blocks.
@@ -69,14 +70,14 @@ public class ItemModuleStablize extends ItemModule
 						{
 							if (checkStack.getItem() instanceof ItemBlock)
 							{
-								if (blockInfo == null || (blockInfo[0] == ((ItemBlock) checkStack.getItem()).getBlockID()))
+								if (index < 0 || (template.getBlockID(index) == ((ItemBlock) checkStack.getItem()).getBlockID()))
 								{
 									try
 									{
 										// checkStack.getHasSubtypes()
 										if (((TileEntity) projector).worldObj.canPlaceEntityOnSide(((ItemBlock) checkStack.getItem()).getBlockID(), position.intX(), position.intY(), position.intZ(), false, 0, null, checkStack))
 										{
-											int metadata = blockInfo != null ? blockInfo[1] : 0;
+											int metadata = index >= 0 ? template.getBlockMetadata(index) : 0;
 											((ItemBlock) checkStack.getItem()).placeBlockAt(checkStack, null, ((TileEntity) projector).worldObj, position.intX(), position.intY(), position.intZ(), 0, 0, 0, 0, metadata);
 											inventory.decrStackSize(i, 1);
 											PacketManager.sendPacketToClients(PacketManager.getPacket(ModularForceFieldSystem.CHANNEL, (TileEntity) projector, TilePacketType.FXS.ordinal(), 1, position.intX(), position.intY(), position.intZ()), ((TileEntity) projector).worldObj);
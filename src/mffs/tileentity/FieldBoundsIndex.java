@@ -0,0 +1,326 @@
+package mffs.tileentity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mffs.api.ChunkPositionSet;
+import mffs.api.IProjector;
+import mffs.api.PositionSet;
+import mffs.api.security.IInterdictionMatrix;
+import mffs.base.BoundsTree;
+import net.minecraft.world.World;
+
+/**
+ * The areas covered by the projectors and interdiction matrices of a world. Projectors publish
+ * the box of their calculated field into a bounding box tree. Active matrices publish their action
+ * range into a map of the chunks it covers, so finding the matrices around a position is a single
+ * lookup. Neither needs to look at every machine.
+ *
+ * @author Calclavia
+ *
+ */
+public class FieldBoundsIndex
+{
+	/**
+	 * The index of each loaded world, client worlds included. Entries are removed when the world
+	 * unloads, as the machines in an index reference their world.
+	 */
+	private static final Map<World, FieldBoundsIndex> INDICES = new HashMap<World, FieldBoundsIndex>();
+
+	private final BoundsTree<IProjector> projectors = new BoundsTree<IProjector>();
+
+	/**
+	 * The active matrices whose action range covers each chunk, keyed by packed chunk
+	 * coordinates, and the chunks each matrix is listed in.
+	 */
+	private final Map<Long, List<IInterdictionMatrix>> coverage = new HashMap<Long, List<IInterdictionMatrix>>();
+	private final Map<IInterdictionMatrix, long[]> coveredChunks = new HashMap<IInterdictionMatrix, long[]>();
+
+	/**
+	 * The center and action range of the active matrices with an anti-spawn module, and the 16
+	 * block sections their ranges cover. Sections in deniedSections are completely in range,
+	 * sections in partialSections only in part. Both are rebuilt when an anti-spawn matrix changes.
+	 */
+	private final Map<IInterdictionMatrix, int[]> antiSpawnRanges = new HashMap<IInterdictionMatrix, int[]>();
+	private final PositionSet deniedSections = new PositionSet();
+	private final PositionSet partialSections = new PositionSet();
+
+	private final int worldHeight;
+
+	private FieldBoundsIndex(int worldHeight)
+	{
+		this.worldHeight = worldHeight;
+	}
+
+	/**
+	 * Gets the index of a world, creating it if the world has none. Projectors only publish on the
+	 * server, interdiction matrices publish on both sides.
+	 */
+	public static synchronized FieldBoundsIndex get(World world)
+	{
+		FieldBoundsIndex index = INDICES.get(world);
+
+		if (index == null)
+		{
+			index = new FieldBoundsIndex(world.getHeight());
+			INDICES.put(world, index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Drops the index of a world. Called when the world unloads.
+	 */
+	public static synchronized void unload(World world)
+	{
+		INDICES.remove(world);
+	}
+
+	/**
+	 * Drops all indices. Called when a server starts, as the worlds of the last server are gone.
+	 */
+	public static synchronized void clear()
+	{
+		INDICES.clear();
+	}
+
+	/**
+	 * Publishes the field box of a projector. The projectors overlapping the old and the new box
+	 * are told if the box changed.
+	 */
+	public void putProjector(IProjector projector, int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+	{
+		if (this.projectors.contains(projector, minX, minY, minZ, maxX, maxY, maxZ))
+		{
+			return;
+		}
+
+		this.notifyOverlapping(projector);
+		this.projectors.put(projector, minX, minY, minZ, maxX, maxY, maxZ);
+		this.notifyOverlapping(projector);
+	}
+
+	/**
+	 * Removes the field box of a projector, telling the projectors that overlapped it.
+	 */
+	public void removeProjector(IProjector projector)
+	{
+		if (this.projectors.contains(projector))
+		{
+			this.notifyOverlapping(projector);
+			this.projectors.remove(projector);
+		}
+	}
+
+	/**
+	 * Tells the projectors overlapping a projector's field box that it changed, as the positions
+	 * their modules filtered out may depend on it.
+	 */
+	private void notifyOverlapping(IProjector projector)
+	{
+		for (IProjector overlapping : this.projectors.getOverlapping(projector))
+		{
+			if (overlapping != projector && overlapping instanceof TileEntityForceFieldProjector)
+			{
+				((TileEntityForceFieldProjector) overlapping).onOverlapChanged();
+			}
+		}
+	}
+
+	/**
+	 * @return The projectors whose field box overlaps the field box of a projector, including the
+	 * projector itself. Empty if the projector has not published its field.
+	 */
+	public List<IProjector> getOverlappingProjectors(IProjector projector)
+	{
+		return this.projectors.getOverlapping(projector);
+	}
+
+	/**
+	 * Lists a matrix in every chunk its action range touches, replacing where it was listed
+	 * before. Only active matrices should be listed.
+	 *
+	 * @param antiSpawn - True if the matrix stops mobs from spawning in its range.
+	 */
+	public void putInterdictionMatrix(IInterdictionMatrix interdictionMatrix, int x, int y, int z, int range, boolean antiSpawn)
+	{
+		this.removeInterdictionMatrix(interdictionMatrix);
+
+		int minChunkX = (x - range) >> 4;
+		int minChunkZ = (z - range) >> 4;
+		int maxChunkX = (x + range) >> 4;
+		int maxChunkZ = (z + range) >> 4;
+		long[] chunks = new long[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+		int i = 0;
+
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++)
+		{
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++)
+			{
+				long chunk = ChunkPositionSet.packChunk(chunkX, chunkZ);
+				List<IInterdictionMatrix> matrices = this.coverage.get(chunk);
+
+				if (matrices == null)
+				{
+					matrices = new ArrayList<IInterdictionMatrix>(1);
+					this.coverage.put(chunk, matrices);
+				}
+
+				matrices.add(interdictionMatrix);
+				chunks[i++] = chunk;
+			}
+		}
+
+		this.coveredChunks.put(interdictionMatrix, chunks);
+
+		if (antiSpawn)
+		{
+			this.antiSpawnRanges.put(interdictionMatrix, new int[] { x, y, z, range });
+			this.rebuildSpawnSections();
+		}
+	}
+
+	public void removeInterdictionMatrix(IInterdictionMatrix interdictionMatrix)
+	{
+		if (this.antiSpawnRanges.remove(interdictionMatrix) != null)
+		{
+			this.rebuildSpawnSections();
+		}
+
+		long[] chunks = this.coveredChunks.remove(interdictionMatrix);
+
+		if (chunks != null)
+		{
+			for (long chunk : chunks)
+			{
+				List<IInterdictionMatrix> matrices = this.coverage.get(chunk);
+
+				if (matrices != null)
+				{
+					matrices.remove(interdictionMatrix);
+
+					if (matrices.isEmpty())
+					{
+						this.coverage.remove(chunk);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The active matrices whose action range covers the chunk of a position. The range
+	 * itself is a sphere, so callers still need to check the distance. Do not modify this list.
+	 */
+	public List<IInterdictionMatrix> getInterdictionMatrices(double x, double z)
+	{
+		List<IInterdictionMatrix> matrices = this.coverage.get(ChunkPositionSet.packChunk((int) Math.floor(x) >> 4, (int) Math.floor(z) >> 4));
+		return matrices != null ? matrices : Collections.<IInterdictionMatrix> emptyList();
+	}
+
+	/**
+	 * @return True if a position is in the action range of an active anti-spawn matrix. Most
+	 * positions are answered by the section sets alone, only sections on the edge of a range check
+	 * the distance.
+	 */
+	public boolean isSpawnDenied(double x, double y, double z)
+	{
+		long section = PositionSet.pack((int) Math.floor(x) >> 4, (int) Math.floor(y) >> 4, (int) Math.floor(z) >> 4);
+
+		if (this.deniedSections.contains(section))
+		{
+			return true;
+		}
+
+		if (this.partialSections.contains(section))
+		{
+			for (int[] range : this.antiSpawnRanges.values())
+			{
+				double dx = x - range[0], dy = y - range[1], dz = z - range[2];
+
+				if (dx * dx + dy * dy + dz * dz <= (double) range[3] * range[3])
+				{
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private void rebuildSpawnSections()
+	{
+		this.deniedSections.clear();
+		this.partialSections.clear();
+
+		for (int[] range : this.antiSpawnRanges.values())
+		{
+			int x = range[0], y = range[1], z = range[2];
+			long rangeSquared = (long) range[3] * range[3];
+			int minSectionY = Math.max((y - range[3]) >> 4, 0);
+			int maxSectionY = Math.min((y + range[3]) >> 4, (this.worldHeight - 1) >> 4);
+
+			for (int sectionX = (x - range[3]) >> 4; sectionX <= (x + range[3]) >> 4; sectionX++)
+			{
+				for (int sectionZ = (z - range[3]) >> 4; sectionZ <= (z + range[3]) >> 4; sectionZ++)
+				{
+					for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++)
+					{
+						long nearest = square(getNearestDistance(x, sectionX)) + square(getNearestDistance(y, sectionY)) + square(getNearestDistance(z, sectionZ));
+
+						if (nearest > rangeSquared)
+						{
+							continue;
+						}
+
+						long farthest = square(getFarthestDistance(x, sectionX)) + square(getFarthestDistance(y, sectionY)) + square(getFarthestDistance(z, sectionZ));
+
+						if (farthest <= rangeSquared)
+						{
+							this.deniedSections.add(sectionX, sectionY, sectionZ);
+						}
+						else
+						{
+							this.partialSections.add(sectionX, sectionY, sectionZ);
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * A section fully covered by one matrix does not need the distance check of another.
+		 */
+		PositionSet.Cursor cursor = this.deniedSections.cursor();
+
+		while (cursor.next())
+		{
+			this.partialSections.remove(cursor.key());
+		}
+	}
+
+	/**
+	 * @return The distance along one axis from a coordinate to the nearest edge of a section.
+	 */
+	private static int getNearestDistance(int coordinate, int section)
+	{
+		int min = section << 4;
+		int max = min + 16;
+		return coordinate < min ? min - coordinate : (coordinate > max ? coordinate - max : 0);
+	}
+
+	private static int getFarthestDistance(int coordinate, int section)
+	{
+		int min = section << 4;
+		return Math.max(Math.abs(coordinate - min), Math.abs(min + 16 - coordinate));
+	}
+
+	private static long square(int value)
+	{
+		return (long) value * value;
+	}
+}
@@ -0,0 +1,228 @@
+package mffs.tileentity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mffs.api.ChunkPositionSet;
+import mffs.api.ChunkPositionSet.Bucket;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.IWorldAccess;
+import net.minecraft.world.World;
+
+/**
+ * Listens to block changes in a world and tells the projectors whose calculated field contains
+ * the changed block. This lets projectors revisit only the positions that actually changed.
+ * Projectors are indexed by the chunks their field covers, so a block change only reaches the
+ * projectors of its chunk. Only used on the server.
+ *
+ * @author Calclavia
+ *
+ */
+public class FieldChangeListener implements IWorldAccess
+{
+	/**
+	 * The listener of each loaded world. Entries are removed when the world unloads, as each
+	 * listener references its world through its projectors.
+	 */
+	private static final Map<World, FieldChangeListener> LISTENERS = new HashMap<World, FieldChangeListener>();
+
+	/**
+	 * The chunk keys of the field each projector was indexed with.
+	 */
+	private final Map<TileEntityForceFieldProjector, IndexedField> projectors = new HashMap<TileEntityForceFieldProjector, IndexedField>();
+	private final Map<Long, List<TileEntityForceFieldProjector>> chunks = new HashMap<Long, List<TileEntityForceFieldProjector>>();
+
+	/**
+	 * Gets the listener of a world, attaching a new one if the world has none.
+	 */
+	public static FieldChangeListener get(World world)
+	{
+		FieldChangeListener listener = LISTENERS.get(world);
+
+		if (listener == null)
+		{
+			listener = new FieldChangeListener();
+			world.addWorldAccess(listener);
+			LISTENERS.put(world, listener);
+		}
+
+		return listener;
+	}
+
+	/**
+	 * Detaches and drops the listener of a world. Called when the world unloads.
+	 */
+	public static void unload(World world)
+	{
+		FieldChangeListener listener = LISTENERS.remove(world);
+
+		if (listener != null)
+		{
+			world.removeWorldAccess(listener);
+		}
+	}
+
+	/**
+	 * Drops all listeners. Called when a server starts, as the worlds of the last server are gone.
+	 */
+	public static void clear()
+	{
+		LISTENERS.clear();
+	}
+
+	public void register(TileEntityForceFieldProjector projector)
+	{
+		this.unregister(projector);
+		this.index(projector, projector.calculatedField);
+	}
+
+	public void unregister(TileEntityForceFieldProjector projector)
+	{
+		IndexedField indexed = this.projectors.remove(projector);
+
+		if (indexed != null)
+		{
+			for (long chunk : indexed.chunks)
+			{
+				List<TileEntityForceFieldProjector> list = this.chunks.get(chunk);
+
+				if (list != null)
+				{
+					list.remove(projector);
+
+					if (list.isEmpty())
+					{
+						this.chunks.remove(chunk);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Indexes the chunks of a registered projector again if its calculated field was replaced.
+	 * Called every tick, so it only compares the field instance.
+	 */
+	public void update(TileEntityForceFieldProjector projector)
+	{
+		IndexedField indexed = this.projectors.get(projector);
+
+		if (indexed != null && indexed.field != projector.calculatedField)
+		{
+			this.register(projector);
+		}
+	}
+
+	private void index(TileEntityForceFieldProjector projector, ChunkPositionSet field)
+	{
+		List<Long> keys = new ArrayList<Long>();
+
+		for (Bucket bucket : field.buckets())
+		{
+			long chunk = ChunkPositionSet.packChunk(bucket.chunkX, bucket.chunkZ);
+			List<TileEntityForceFieldProjector> list = this.chunks.get(chunk);
+
+			if (list == null)
+			{
+				list = new ArrayList<TileEntityForceFieldProjector>(2);
+				this.chunks.put(chunk, list);
+			}
+
+			list.add(projector);
+			keys.add(chunk);
+		}
+
+		long[] chunks = new long[keys.size()];
+
+		for (int i = 0; i < chunks.length; i++)
+		{
+			chunks[i] = keys.get(i);
+		}
+
+		this.projectors.put(projector, new IndexedField(field, chunks));
+	}
+
+	@Override
+	public void markBlockForUpdate(int x, int y, int z)
+	{
+		List<TileEntityForceFieldProjector> list = this.chunks.get(ChunkPositionSet.packChunk(x >> 4, z >> 4));
+
+		if (list != null)
+		{
+			for (int i = 0; i < list.size(); i++)
+			{
+				list.get(i).onFieldBlockChange(x, y, z);
+			}
+		}
+	}
+
+	@Override
+	public void markBlockForRenderUpdate(int x, int y, int z)
+	{
+	}
+
+	@Override
+	public void markBlockRangeForRenderUpdate(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+	{
+	}
+
+	@Override
+	public void playSound(String sound, double x, double y, double z, float volume, float pitch)
+	{
+	}
+
+	@Override
+	public void playSoundToNearExcept(EntityPlayer player, String sound, double x, double y, double z, float volume, float pitch)
+	{
+	}
+
+	@Override
+	public void spawnParticle(String particle, double x, double y, double z, double motionX, double motionY, double motionZ)
+	{
+	}
+
+	@Override
+	public void onEntityCreate(Entity entity)
+	{
+	}
+
+	@Override
+	public void onEntityDestroy(Entity entity)
+	{
+	}
+
+	@Override
+	public void playRecord(String record, int x, int y, int z)
+	{
+	}
+
+	@Override
+	public void broadcastSound(int soundID, int x, int y, int z, int data)
+	{
+	}
+
+	@Override
+	public void playAuxSFX(EntityPlayer player, int sfxType, int x, int y, int z, int data)
+	{
+	}
+
+	@Override
+	public void destroyBlockPartially(int entityID, int x, int y, int z, int progress)
+	{
+	}
+
+	private static class IndexedField
+	{
+		private final ChunkPositionSet field;
+		private final long[] chunks;
+
+		private IndexedField(ChunkPositionSet field, long[] chunks)
+		{
+			this.field = field;
+			this.chunks = chunks;
+		}
+	}
+}
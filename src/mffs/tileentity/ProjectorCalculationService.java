@@ -0,0 +1,107 @@
+package mffs.tileentity;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mffs.Settings;
+
+/**
+ * A shared, size-bounded pool that calculates projector fields. Tasks wait in a priority queue so
+ * that projectors closest to players are calculated first.
+ *
+ * @author Calclavia
+ *
+ */
+public class ProjectorCalculationService
+{
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	private static ThreadPoolExecutor executor;
+
+	/**
+	 * Calculates the slabs of large fields. It is separate from the task pool so that a task
+	 * waiting on its slabs never waits on a thread that is busy with another task.
+	 */
+	private static ExecutorService slabExecutor;
+
+	/**
+	 * Queues a calculation task. Tasks must be executed rather than submitted so that the queue
+	 * can order them by priority.
+	 */
+	public static synchronized void submit(ProjectorCalculationTask task)
+	{
+		if (executor == null)
+		{
+			int threads = getThreadCount();
+			executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(), new CalculationThreadFactory("MFFS Field Calculation"));
+			executor.allowCoreThreadTimeOut(true);
+		}
+
+		executor.execute(task);
+	}
+
+	/**
+	 * @return The amount of tasks waiting to be calculated.
+	 */
+	public static synchronized int getQueueSize()
+	{
+		return executor != null ? executor.getQueue().size() : 0;
+	}
+
+	/**
+	 * Drops all queued tasks. Called when the server restarts so that tasks from a previous world
+	 * are not calculated.
+	 */
+	public static synchronized void reinitiate()
+	{
+		if (executor != null)
+		{
+			executor.getQueue().clear();
+		}
+	}
+
+	public static synchronized ExecutorService getSlabExecutor()
+	{
+		if (slabExecutor == null)
+		{
+			slabExecutor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), new CalculationThreadFactory("MFFS Field Slab"));
+		}
+
+		return slabExecutor;
+	}
+
+	public static int getThreadCount()
+	{
+		if (Settings.CALCULATION_THREADS > 0)
+		{
+			return Settings.CALCULATION_THREADS;
+		}
+
+		return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	}
+
+	private static class CalculationThreadFactory implements ThreadFactory
+	{
+		private final String name;
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		public CalculationThreadFactory(String name)
+		{
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, this.name + " #" + this.threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,305 @@
+package mffs.tileentity;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import mffs.Settings;
+import mffs.api.ChunkPositionSet;
+import mffs.api.IPositionSink;
+import mffs.api.PositionSet;
+import mffs.api.modules.IModule;
+import mffs.api.modules.IProjectorMode;
+import mffs.api.modules.IProjectorModeKernel;
+import mffs.base.RotationTransform;
+import universalelectricity.core.vector.Vector3;
+
+/**
+ * A queued job that calculates the field of a projector on the shared calculation service.
+ *
+ * @author Calclavia
+ *
+ */
+public class ProjectorCalculationTask implements Runnable, Comparable<ProjectorCalculationTask>
+{
+	public interface IThreadCallBack
+	{
+		/**
+		 * Called when the thread finishes the calculation.
+		 */
+		public void onThreadComplete();
+	}
+
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+
+	private final TileEntityForceFieldProjector projector;
+	private final IThreadCallBack callBack;
+
+	/**
+	 * Lower values are calculated first. Usually the squared distance to the closest player.
+	 */
+	private final double priority;
+	private final long sequence = SEQUENCE.getAndIncrement();
+
+	private volatile boolean isCancelled = false;
+
+	public ProjectorCalculationTask(TileEntityForceFieldProjector projector, double priority)
+	{
+		this(projector, priority, null);
+	}
+
+	public ProjectorCalculationTask(TileEntityForceFieldProjector projector, double priority, IThreadCallBack callBack)
+	{
+		this.projector = projector;
+		this.priority = priority;
+		this.callBack = callBack;
+	}
+
+	/**
+	 * Cancels this task. A cancelled task that has not started yet will be skipped, and a running
+	 * one will discard its result.
+	 */
+	public void cancel()
+	{
+		this.isCancelled = true;
+	}
+
+	public boolean isCancelled()
+	{
+		return this.isCancelled;
+	}
+
+	public IThreadCallBack getCallBack()
+	{
+		return this.callBack;
+	}
+
+	@Override
+	public void run()
+	{
+		if (this.isCancelled)
+		{
+			return;
+		}
+
+		ChunkPositionSet calculatedField = new ChunkPositionSet();
+		boolean isComplete = false;
+		Throwable error = null;
+
+		try
+		{
+			isComplete = this.calculate(calculatedField);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			error = e.getCause();
+		}
+		catch (Exception e)
+		{
+			error = e;
+		}
+
+		if (isComplete)
+		{
+			this.projector.onCalculationComplete(this, calculatedField);
+		}
+		else
+		{
+			this.projector.onCalculationFailed(this, error);
+		}
+	}
+
+	/**
+	 * Writes the field of the projector to the given set.
+	 *
+	 * @return False if the task was cancelled.
+	 */
+	private boolean calculate(final ChunkPositionSet calculatedField) throws InterruptedException, ExecutionException
+	{
+		IProjectorMode mode = this.projector.getMode();
+		Vector3 translation = this.projector.getTranslation();
+		RotationTransform rotation = RotationTransform.get(this.projector);
+
+		if (mode instanceof IProjectorModeKernel && ((IProjectorModeKernel) mode).isRotationInvariant())
+		{
+			rotation = RotationTransform.IDENTITY;
+		}
+
+		if (mode instanceof IProjectorModeKernel && (rotation.isIdentity() || (rotation.isAxisAligned() && ((IProjectorModeKernel) mode).isAxisRotatable())))
+		{
+			/**
+			 * Fields that are not rotated, or rotated onto block positions, are written straight
+			 * into the field as block positions.
+			 */
+			final int offsetX = this.projector.xCoord + translation.intX();
+			final int offsetY = this.projector.yCoord + translation.intY();
+			final int offsetZ = this.projector.zCoord + translation.intZ();
+			final int maxY = this.projector.worldObj.getHeight();
+
+			IPositionSink sink = new IPositionSink()
+			{
+				@Override
+				public boolean add(int x, int y, int z)
+				{
+					return y + offsetY <= maxY && calculatedField.add(x + offsetX, y + offsetY, z + offsetZ);
+				}
+			};
+
+			((IProjectorModeKernel) mode).writeExteriorPoints(this.projector, rotation.isIdentity() ? sink : rotation.transform(sink));
+
+			if (this.isCancelled)
+			{
+				return false;
+			}
+		}
+		else
+		{
+			Set<Vector3> newField = mode.getExteriorPoints(this.projector);
+			Vector3 offset = new Vector3(this.projector).add(translation);
+			int slabSize = Settings.CALCULATION_SLAB_SIZE;
+
+			if (slabSize > 0 && newField.size() >= slabSize * 2)
+			{
+				if (!this.transformParallel(newField, slabSize, rotation, offset, calculatedField))
+				{
+					return false;
+				}
+			}
+			else if (!this.transform(newField.toArray(new Vector3[newField.size()]), 0, newField.size(), rotation, offset, calculatedField))
+			{
+				return false;
+			}
+		}
+
+		for (IModule module : this.projector.getModules(this.projector.getModuleSlotGroup()))
+		{
+			module.onCalculate(this.projector, calculatedField.asVectorSet());
+		}
+
+		return !this.isCancelled;
+	}
+
+	/**
+	 * Splits the points into slabs that are transformed on the slab pool, each into its own
+	 * position set. Each slab is queued as soon as it is taken from the field, and the slabs are
+	 * merged into the field once they are all done. Slabs still queued when the task is cancelled
+	 * or fails are cancelled too.
+	 *
+	 * @return False if the task was cancelled.
+	 */
+	private boolean transformParallel(Set<Vector3> field, int slabSize, final RotationTransform rotation, final Vector3 offset, ChunkPositionSet calculatedField) throws InterruptedException, ExecutionException
+	{
+		ExecutorService executor = ProjectorCalculationService.getSlabExecutor();
+		List<Future<PositionSet>> results = new ArrayList<Future<PositionSet>>();
+
+		try
+		{
+			Iterator<Vector3> it = field.iterator();
+			int remaining = field.size();
+
+			while (remaining > 0)
+			{
+				if (this.isCancelled)
+				{
+					return false;
+				}
+
+				final Vector3[] points = new Vector3[Math.min(slabSize, remaining)];
+
+				for (int i = 0; i < points.length; i++)
+				{
+					points[i] = it.next();
+				}
+
+				remaining -= points.length;
+
+				results.add(executor.submit(new Callable<PositionSet>()
+				{
+					@Override
+					public PositionSet call()
+					{
+						PositionSet slab = new PositionSet(points.length);
+						return ProjectorCalculationTask.this.transform(points, 0, points.length, rotation, offset, slab) ? slab : null;
+					}
+				}));
+			}
+
+			for (Future<PositionSet> result : results)
+			{
+				PositionSet slab = result.get();
+
+				if (slab == null || this.isCancelled)
+				{
+					return false;
+				}
+
+				calculatedField.addAll(slab);
+			}
+
+			return true;
+		}
+		finally
+		{
+			for (Future<PositionSet> result : results)
+			{
+				result.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Rotates, translates and rounds a range of the field points and writes them to a sink.
+	 *
+	 * @return False if the task was cancelled.
+	 */
+	private boolean transform(Vector3[] points, int from, int to, RotationTransform rotation, Vector3 offset, IPositionSink sink)
+	{
+		int maxY = this.projector.worldObj.getHeight();
+
+		for (int i = from; i < to; i++)
+		{
+			if (this.isCancelled)
+			{
+				return false;
+			}
+
+			Vector3 position = points[i];
+
+			if (!rotation.isIdentity())
+			{
+				rotation.transform(position);
+			}
+
+			position.add(offset);
+
+			if (position.intY() <= maxY)
+			{
+				position = position.round();
+				sink.add(position.intX(), position.intY(), position.intZ());
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public int compareTo(ProjectorCalculationTask task)
+	{
+		if (this.priority != task.priority)
+		{
+			return this.priority < task.priority ? -1 : 1;
+		}
+
+		return this.sequence < task.sequence ? -1 : (this.sequence == task.sequence ? 0 : 1);
+	}
+}
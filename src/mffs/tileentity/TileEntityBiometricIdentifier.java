@@ -10,7 +10,6 @@ import mffs.api.card.ICardIdentification;
 import mffs.api.security.IBiometricIdentifier;
 import mffs.api.security.Permission;
 import mffs.base.TileEntityFrequency;
-import mffs.fortron.FrequencyGrid;
 import mffs.item.card.ItemCardFrequency;
 import net.minecraft.item.ItemStack;
 
@@ -20,11 +19,6 @@ public class TileEntityBiometricIdentifier extends TileEntityFrequency implement
 {
 	public static final int SLOT_COPY = 12;
 
-	public TileEntityBiometricIdentifier()
-	{
-		FrequencyGrid.instance().register(this);
-	}
-
 	@Override
 	public boolean isAccessGranted(String username, Permission permission)
 	{
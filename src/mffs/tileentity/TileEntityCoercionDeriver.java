@@ -8,7 +8,6 @@ import mffs.ModularForceFieldSystem;
 import mffs.Settings;
 import mffs.api.modules.IModule;
 import mffs.base.TileEntityUniversalEnergy;
-import mffs.fortron.FortronHelper;
 import mffs.item.card.ItemCardFrequency;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
@@ -92,7 +91,7 @@ public class TileEntityCoercionDeriver extends TileEntityUniversalEnergy
 							production *= NORMAL_PRODUCTION;
 						}
 
-						this.fortronTank.fill(FortronHelper.getFortron(production + this.worldObj.rand.nextInt(production)), true);
+						this.fortronTank.fillAmount(production + this.worldObj.rand.nextInt(production), true);
 
 						// Use fuel
 						if (this.processTime == 0 && this.isStackValidForSlot(SLOT_FUEL, this.getStackInSlot(SLOT_FUEL)))
@@ -149,7 +148,7 @@ public class TileEntityCoercionDeriver extends TileEntityUniversalEnergy
 	{
 		if (this.isActive() && !this.isInversed)
 		{
-			return FortronHelper.getAmount(this.fortronTank) < this.fortronTank.getCapacity();
+			return this.fortronTank.getAmount() < this.fortronTank.getCapacity();
 		}
 
 		return false;
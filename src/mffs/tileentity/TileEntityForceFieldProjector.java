@@ -1,8 +1,8 @@
 package mffs.tileentity;
 
 import java.io.IOException;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -11,23 +11,30 @@ import java.util.Set;
 import mffs.DelayedEvent;
 import mffs.ModularForceFieldSystem;
 import mffs.Settings;
-import mffs.api.ICache;
+import mffs.api.ChunkPositionSet;
+import mffs.api.ChunkPositionSet.Bucket;
+import mffs.api.FieldOccupancy;
 import mffs.api.IProjector;
+import mffs.api.PositionSet;
 import mffs.api.modules.IModule;
 import mffs.api.modules.IProjectorMode;
+import mffs.api.modules.ModuleSlotGroup;
+import mffs.base.RotationTransform;
 import mffs.base.TileEntityModuleAcceptor;
 import mffs.block.BlockForceField;
 import mffs.card.ItemCard;
-import mffs.tileentity.ProjectorCalculationThread.IThreadCallBack;
+import mffs.tileentity.ProjectorCalculationTask.IThreadCallBack;
 import net.minecraft.block.Block;
+import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.AxisAlignedBB;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IChunkProvider;
 import net.minecraftforge.common.ForgeDirection;
 import net.minecraftforge.liquids.LiquidContainerRegistry;
 import universalelectricity.core.vector.Vector3;
 import universalelectricity.core.vector.VectorHelper;
-import calclavia.lib.CalculationHelper;
 
 import com.google.common.io.ByteArrayDataInput;
 
@@ -38,17 +45,72 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 {
 	private static final int MODULE_SLOT_ID = 2;
 
+	/**
+	 * The module slots of each side, and the direction-unspecific module slots.
+	 */
+	private static final ModuleSlotGroup SLOTS_NONE = new ModuleSlotGroup();
+	private static final ModuleSlotGroup SLOTS_UP = new ModuleSlotGroup(3, 11);
+	private static final ModuleSlotGroup SLOTS_DOWN = new ModuleSlotGroup(6, 14);
+	private static final ModuleSlotGroup SLOTS_NORTH = new ModuleSlotGroup(8, 10);
+	private static final ModuleSlotGroup SLOTS_SOUTH = new ModuleSlotGroup(7, 9);
+	private static final ModuleSlotGroup SLOTS_WEST = new ModuleSlotGroup(12, 13);
+	private static final ModuleSlotGroup SLOTS_EAST = new ModuleSlotGroup(4, 5);
+	private static final ModuleSlotGroup SLOTS_MODULE = new ModuleSlotGroup(15, 16, 17, 18, 19, 20);
+
 	public final List<DelayedEvent> delayedEvents = new ArrayList<DelayedEvent>();
 
 	/**
 	 * A set containing all positions of all force field blocks.
 	 */
-	protected final Set<Vector3> forceFields = new HashSet<Vector3>();
+	protected final PositionSet forceFields = new PositionSet();
+
+	/**
+	 * The calculated field, bucketed by chunk. Only replaced as a whole once a calculation
+	 * finishes, so the main thread never sees a half written set.
+	 */
+	protected volatile ChunkPositionSet calculatedField = new ChunkPositionSet();
+
+	/**
+	 * Positions of the calculated field that still need to be projected. Positions that are
+	 * projected or blocked leave this set and only come back through dirtyField.
+	 */
+	protected ChunkPositionSet pendingField = new ChunkPositionSet();
 
-	protected final Set<Vector3> calculatedField = Collections.synchronizedSet(new HashSet<Vector3>());
+	/**
+	 * Positions of the calculated field that changed since the last projection.
+	 */
+	protected final PositionSet dirtyField = new PositionSet();
 
-	public boolean isCalculating = false;
-	public boolean isCalculated = false;
+	/**
+	 * Positions of the calculated field that the modules filtered out, such as positions inside a
+	 * fused field. They are checked again when an overlapping field changes.
+	 */
+	protected final PositionSet filteredField = new PositionSet();
+
+	/**
+	 * True while this projector places or removes its own blocks, so those changes are not
+	 * reported back as dirty.
+	 */
+	private boolean isProjecting = false;
+
+	public volatile boolean isCalculating = false;
+	public volatile boolean isCalculated = false;
+
+	/**
+	 * The calculation task currently queued or running for this projector.
+	 */
+	private ProjectorCalculationTask calculationTask;
+
+	/**
+	 * Set when a calculation throws. The same modules would fail again, so the field is not
+	 * calculated again until the inventory changes.
+	 */
+	private volatile boolean isCalculationFailed = false;
+
+	/**
+	 * The isInField cache of the calculated field, built when first needed.
+	 */
+	private volatile FieldOccupancy occupancy;
 
 	public TileEntityForceFieldProjector()
 	{
@@ -101,6 +163,12 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 	{
 		super.updateEntity();
 
+		if (!this.worldObj.isRemote)
+		{
+			this.publishBounds();
+			FieldChangeListener.get(this.worldObj).update(this);
+		}
+
 		Iterator<DelayedEvent> it = this.delayedEvents.iterator();
 
 		while (it.hasNext())
@@ -163,34 +231,117 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 	@Override
 	public float getAmplifier()
 	{
-		return Math.max(Math.min((this.getCalculatedField().size() / 1000), 10), 1);
+		return Math.max(Math.min((this.calculatedField.size() / 1000), 10), 1);
 	}
 
 	@Override
 	public void onInventoryChanged()
 	{
 		super.onInventoryChanged();
+		this.isCalculationFailed = false;
 		this.destroyField();
 	}
 
 	private void calculateForceField(IThreadCallBack callBack)
 	{
-		if (!this.worldObj.isRemote && !this.isCalculating)
+		if (!this.worldObj.isRemote && !this.isCalculating && !this.isCalculationFailed)
 		{
 			if (this.getMode() != null)
 			{
-				if (this.getModeStack().getItem() instanceof ICache)
+				this.forceFields.clear();
+				this.calculatedField = new ChunkPositionSet();
+				this.occupancy = null;
+				this.dirtyField.clear();
+				this.filteredField.clear();
+				FieldChangeListener.get(this.worldObj).register(this);
+
+				// Queue the calculation on the shared calculation service.
+				synchronized (this)
 				{
-					((ICache) this.getModeStack().getItem()).clearCache();
+					this.isCalculating = true;
+					this.calculationTask = new ProjectorCalculationTask(this, this.getCalculationPriority(), callBack);
+					ProjectorCalculationService.submit(this.calculationTask);
 				}
+			}
+		}
+	}
 
-				this.forceFields.clear();
-				this.calculatedField.clear();
+	/**
+	 * Called by the calculation service when a task finishes. Results of stale tasks are dropped.
+	 */
+	protected synchronized void onCalculationComplete(ProjectorCalculationTask task, ChunkPositionSet field)
+	{
+		if (task != this.calculationTask || task.isCancelled())
+		{
+			return;
+		}
 
-				// Start multi-threading calculation
-				(new ProjectorCalculationThread(this, callBack)).start();
-			}
+		this.calculatedField = field;
+		this.pendingField = field.copy();
+		this.occupancy = null;
+		this.calculationTask = null;
+		this.isCalculating = false;
+		this.isCalculated = true;
+
+		if (task.getCallBack() != null)
+		{
+			task.getCallBack().onThreadComplete();
+		}
+	}
+
+	/**
+	 * Called by the calculation service when a task does not finish. No field is published. An
+	 * interrupted task is calculated again on a later tick, one that threw waits for an inventory
+	 * change.
+	 *
+	 * @param error - The exception the calculation threw, or null if it was interrupted.
+	 */
+	protected synchronized void onCalculationFailed(ProjectorCalculationTask task, Throwable error)
+	{
+		if (task != this.calculationTask)
+		{
+			return;
+		}
+
+		this.calculationTask = null;
+		this.isCalculating = false;
+
+		if (error != null)
+		{
+			this.isCalculationFailed = true;
+			ModularForceFieldSystem.LOGGER.severe("Force field projector at " + this.xCoord + ", " + this.yCoord + ", " + this.zCoord + " failed to calculate its field: " + error);
+			error.printStackTrace();
+		}
+	}
+
+	/**
+	 * Cancels the queued or running calculation, if any.
+	 */
+	protected synchronized void cancelCalculation()
+	{
+		if (this.calculationTask != null)
+		{
+			this.calculationTask.cancel();
+			this.calculationTask = null;
 		}
+
+		this.isCalculating = false;
+	}
+
+	/**
+	 * @return The squared distance to the closest player. Projectors near players are calculated
+	 * first.
+	 */
+	private double getCalculationPriority()
+	{
+		EntityPlayer player = this.worldObj.getClosestPlayer(this.xCoord + 0.5, this.yCoord + 0.5, this.zCoord + 0.5, -1);
+
+		if (player != null)
+		{
+			return player.getDistanceSq(this.xCoord + 0.5, this.yCoord + 0.5, this.zCoord + 0.5);
+		}
+
+		return Double.MAX_VALUE;
 	}
 
 	private void calculateForceField()
@@ -199,28 +350,53 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 	}
 
 	/**
-	 * Projects a force field based on the calculations made.
+	 * Called when a block changes in the world. Marks the position dirty if it is part of this
+	 * field, so the next projection checks it again.
+	 */
+	public void onFieldBlockChange(int x, int y, int z)
+	{
+		if (!this.isProjecting && this.isCalculated && !this.isCalculating && this.calculatedField.contains(x, y, z))
+		{
+			this.forceFields.remove(x, y, z);
+			this.dirtyField.add(x, y, z);
+		}
+	}
+
+	/**
+	 * Called when a projector whose field box overlaps this one publishes, moves or removes its
+	 * field. The positions the modules filtered out are projected again, and filtered again if
+	 * they still should be.
+	 */
+	protected void onOverlapChanged()
+	{
+		if (!this.filteredField.isEmpty())
+		{
+			this.dirtyField.addAll(this.filteredField);
+			this.filteredField.clear();
+		}
+	}
+
+	/**
+	 * Projects a force field based on the calculations made. Only positions that are still
+	 * pending are visited, walking the pending set in place.
 	 */
 	@Override
 	public void projectField()
 	{
 		if (!this.worldObj.isRemote && this.isCalculated && !this.isCalculating)
 		{
-			if (this.forceFields.size() <= 0)
+			if (!this.dirtyField.isEmpty())
 			{
-				if (this.getModeStack().getItem() instanceof ICache)
-				{
-					((ICache) this.getModeStack().getItem()).clearCache();
-				}
+				this.pendingField.addAll(this.dirtyField);
+				this.dirtyField.clear();
 			}
 
 			int constructionCount = 0;
 			int constructionSpeed = Math.min(this.getProjectionSpeed(), Settings.MAX_FORCE_FIELDS_PER_TICK);
 
-			HashSet<Vector3> fieldToBeProjected = new HashSet<Vector3>();
-			fieldToBeProjected.addAll(this.calculatedField);
+			PendingFieldView fieldToBeProjected = new PendingFieldView();
 
-			for (IModule module : this.getModules(this.getModuleSlots()))
+			for (IModule module : this.getModules(SLOTS_MODULE))
 			{
 				if (module.onProject(this, fieldToBeProjected))
 				{
@@ -228,38 +404,74 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 				}
 			}
 
-			Iterator<Vector3> it = this.calculatedField.iterator();
+			if (!fieldToBeProjected.filtered.isEmpty())
+			{
+				this.removeFiltered(fieldToBeProjected.filtered);
+				this.filteredField.addAll(fieldToBeProjected.filtered);
+			}
 
-			fieldLoop:
-			while (it.hasNext())
+			if (this.pendingField.isEmpty())
 			{
-				Vector3 vector = it.next();
+				return;
+			}
+
+			boolean hasDisintegration = this.getModuleCount(ModularForceFieldSystem.itemModuleDisintegration) > 0;
+			IChunkProvider chunkProvider = this.worldObj.getChunkProvider();
+			int height = this.worldObj.getHeight();
+			this.isProjecting = true;
 
-				if (fieldToBeProjected.contains(vector))
+			try
+			{
+				fieldLoop:
+				for (Bucket bucket : this.pendingField.buckets())
 				{
-					if (constructionCount > constructionSpeed)
+					/**
+					 * Positions in unloaded chunks stay pending until the chunk is loaded.
+					 */
+					if (!chunkProvider.chunkExists(bucket.chunkX, bucket.chunkZ))
 					{
-						break;
+						continue;
 					}
 
-					Block block = Block.blocksList[vector.getBlockID(this.worldObj)];
+					Chunk chunk = this.worldObj.getChunkFromChunkCoords(bucket.chunkX, bucket.chunkZ);
+
+					PositionSet.Cursor cursor = bucket.positions.cursor();
 
-					if (block == null || (this.getModuleCount(ModularForceFieldSystem.itemModuleDisintegration) > 0 && block.getBlockHardness(this.worldObj, vector.intX(), vector.intY(), vector.intZ()) != -1) || block.blockMaterial.isLiquid() || block == Block.snow || block == Block.vine || block == Block.tallGrass || block == Block.deadBush || block.isBlockReplaceable(this.worldObj, vector.intX(), vector.intY(), vector.intZ()))
+					positionLoop:
+					while (cursor.next())
 					{
-						/**
-						 * Prevents the force field projector from disintegrating itself.
-						 */
-						if (block != ModularForceFieldSystem.blockForceField && !vector.equals(new Vector3(this)))
+						long key = cursor.key();
+						int x = cursor.x();
+						int y = cursor.y();
+						int z = cursor.z();
+
+						if (y < 0 || y >= height)
 						{
-							if (this.worldObj.getChunkFromBlockCoords(vector.intX(), vector.intZ()).isChunkLoaded)
+							this.pendingField.remove(bucket, cursor);
+							continue;
+						}
+
+						if (constructionCount > constructionSpeed)
+						{
+							break fieldLoop;
+						}
+
+						Block block = Block.blocksList[chunk.getBlockID(x & 15, y, z & 15)];
+
+						if (block == null || (hasDisintegration && block.getBlockHardness(this.worldObj, x, y, z) != -1) || block.blockMaterial.isLiquid() || block == Block.snow || block == Block.vine || block == Block.tallGrass || block == Block.deadBush || block.isBlockReplaceable(this.worldObj, x, y, z))
+						{
+							/**
+							 * Prevents the force field projector from disintegrating itself.
+							 */
+							if (block != ModularForceFieldSystem.blockForceField && !(x == this.xCoord && y == this.yCoord && z == this.zCoord))
 							{
-								for (IModule module : this.getModules(this.getModuleSlots()))
+								for (IModule module : this.getModules(SLOTS_MODULE))
 								{
-									int flag = module.onProject(this, vector.clone());
+									int flag = module.onProject(this, new Vector3(x, y, z));
 
 									if (flag == 1)
 									{
-										continue fieldLoop;
+										continue positionLoop;
 									}
 									else if (flag == 2)
 									{
@@ -267,11 +479,11 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 									}
 								}
 
-								this.worldObj.setBlock(vector.intX(), vector.intY(), vector.intZ(), ModularForceFieldSystem.blockForceField.blockID, 0, 2);
+								this.worldObj.setBlock(x, y, z, ModularForceFieldSystem.blockForceField.blockID, 0, 2);
 
 								// Sets the controlling projector of the force field block to
 								// this one.
-								TileEntity tileEntity = this.worldObj.getBlockTileEntity(vector.intX(), vector.intY(), vector.intZ());
+								TileEntity tileEntity = chunk.getChunkBlockTileEntity(x & 15, y, z & 15);
 
 								if (tileEntity instanceof TileEntityForceField)
 								{
@@ -279,52 +491,182 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 								}
 
 								this.requestFortron(1, true);
-								this.forceFields.add(vector);
+								this.forceFields.add(key);
+								this.pendingField.remove(bucket, cursor);
 								constructionCount++;
 							}
+							else
+							{
+								this.pendingField.remove(bucket, cursor);
+							}
+						}
+						else
+						{
+							/**
+							 * Blocked. Wait for a block change before checking this position
+							 * again.
+							 */
+							if (block == ModularForceFieldSystem.blockForceField && ((BlockForceField) block).getProjector(this.worldObj, x, y, z) == this)
+							{
+								this.forceFields.add(key);
+							}
+
+							this.pendingField.remove(bucket, cursor);
 						}
 					}
 				}
-				else
-				{
-					Block block = Block.blocksList[vector.getBlockID(this.worldObj)];
+			}
+			finally
+			{
+				this.isProjecting = false;
+			}
+
+			this.pendingField.trimToSize();
+		}
+	}
+
+	/**
+	 * Removes this projector's force field blocks at positions the modules filtered out, as those
+	 * positions are no longer part of the projected field.
+	 */
+	private void removeFiltered(PositionSet filtered)
+	{
+		int height = this.worldObj.getHeight();
+		this.isProjecting = true;
+
+		try
+		{
+			PositionSet.Cursor cursor = filtered.cursor();
+
+			while (cursor.next())
+			{
+				int x = cursor.x();
+				int y = cursor.y();
+				int z = cursor.z();
 
-					if (block == ModularForceFieldSystem.blockForceField)
+				if (y >= 0 && y < height && this.worldObj.blockExists(x, y, z) && this.worldObj.getBlockId(x, y, z) == ModularForceFieldSystem.blockForceField.blockID)
+				{
+					if (((BlockForceField) ModularForceFieldSystem.blockForceField).getProjector(this.worldObj, x, y, z) == this)
 					{
-						if (((BlockForceField) block).getProjector(this.worldObj, vector.intX(), vector.intY(), vector.intZ()) == this)
-						{
-							this.worldObj.setBlock(vector.intX(), vector.intY(), vector.intZ(), 0);
-						}
+						this.worldObj.setBlock(x, y, z, 0);
 					}
 				}
+
+				this.forceFields.remove(cursor.key());
+			}
+		}
+		finally
+		{
+			this.isProjecting = false;
+		}
+	}
+
+	/**
+	 * The pending field as seen by modules. Positions removed through it leave the pending field
+	 * and are remembered, so this projector's blocks there can be removed.
+	 */
+	private class PendingFieldView extends AbstractSet<Vector3>
+	{
+		private final Set<Vector3> view = pendingField.asVectorSet();
+		private final PositionSet filtered = new PositionSet();
+
+		@Override
+		public Iterator<Vector3> iterator()
+		{
+			final Iterator<Vector3> it = this.view.iterator();
+
+			return new Iterator<Vector3>()
+			{
+				private Vector3 last;
+
+				@Override
+				public boolean hasNext()
+				{
+					return it.hasNext();
+				}
+
+				@Override
+				public Vector3 next()
+				{
+					this.last = it.next();
+					return this.last;
+				}
+
+				@Override
+				public void remove()
+				{
+					it.remove();
+					PendingFieldView.this.filtered.add(this.last);
+				}
+			};
+		}
+
+		@Override
+		public int size()
+		{
+			return this.view.size();
+		}
+
+		@Override
+		public boolean contains(Object object)
+		{
+			return this.view.contains(object);
+		}
+
+		@Override
+		public boolean remove(Object object)
+		{
+			if (this.view.remove(object))
+			{
+				this.filtered.add((Vector3) object);
+				return true;
 			}
 
+			return false;
 		}
 	}
 
+	/**
+	 * Removes all force field blocks one chunk at a time. Chunks that are not loaded are skipped,
+	 * their force field blocks remove themselves once they find that they have no projector.
+	 */
 	@Override
 	public void destroyField()
 	{
 		if (!this.worldObj.isRemote && this.isCalculated && !this.isCalculating)
 		{
-			HashSet<Vector3> copiedSet = new HashSet<Vector3>();
-			copiedSet.addAll(this.calculatedField);
-			Iterator<Vector3> it = copiedSet.iterator();
+			IChunkProvider chunkProvider = this.worldObj.getChunkProvider();
+			int height = this.worldObj.getHeight();
 
-			while (it.hasNext())
+			for (Bucket bucket : this.calculatedField.buckets())
 			{
-				Vector3 vector = it.next();
-				Block block = Block.blocksList[vector.getBlockID(this.worldObj)];
+				if (!chunkProvider.chunkExists(bucket.chunkX, bucket.chunkZ))
+				{
+					continue;
+				}
 
-				if (block == ModularForceFieldSystem.blockForceField)
+				Chunk chunk = this.worldObj.getChunkFromChunkCoords(bucket.chunkX, bucket.chunkZ);
+				PositionSet.Cursor cursor = bucket.positions.cursor();
+
+				while (cursor.next())
 				{
-					this.worldObj.setBlock(vector.intX(), vector.intY(), vector.intZ(), 0, 0, 3);
+					int y = cursor.y();
+
+					if (y >= 0 && y < height && chunk.getBlockID(cursor.x() & 15, y, cursor.z() & 15) == ModularForceFieldSystem.blockForceField.blockID)
+					{
+						this.worldObj.setBlock(cursor.x(), y, cursor.z(), 0, 0, 3);
+					}
 				}
 			}
 		}
 
+		this.cancelCalculation();
 		this.forceFields.clear();
-		this.calculatedField.clear();
+		this.calculatedField = new ChunkPositionSet();
+		this.occupancy = null;
+		this.pendingField = new ChunkPositionSet();
+		this.dirtyField.clear();
+		this.filteredField.clear();
 		this.isCalculated = false;
 	}
 
@@ -332,13 +674,57 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 	public void invalidate()
 	{
 		this.destroyField();
+
+		if (this.worldObj != null)
+		{
+			if (!this.worldObj.isRemote)
+			{
+				FieldChangeListener.get(this.worldObj).unregister(this);
+			}
+
+			FieldBoundsIndex.get(this.worldObj).removeProjector(this);
+		}
+
 		super.invalidate();
 	}
 
+	@Override
+	public void onChunkUnload()
+	{
+		this.cancelCalculation();
+
+		if (!this.worldObj.isRemote)
+		{
+			FieldChangeListener.get(this.worldObj).unregister(this);
+		}
+
+		FieldBoundsIndex.get(this.worldObj).removeProjector(this);
+		super.onChunkUnload();
+	}
+
+	/**
+	 * Publishes the box of the calculated field to the bounds index of the world. The field is
+	 * rounded, so the box is grown by a block.
+	 */
+	private void publishBounds()
+	{
+		ChunkPositionSet field = this.calculatedField;
+		FieldBoundsIndex index = FieldBoundsIndex.get(this.worldObj);
+
+		if (field.isEmpty())
+		{
+			index.removeProjector(this);
+		}
+		else
+		{
+			index.putProjector(this, field.getMinX() - 1, field.getMinY() - 1, field.getMinZ() - 1, field.getMaxX() + 1, field.getMaxY() + 1, field.getMaxZ() + 1);
+		}
+	}
+
 	@Override
 	public int getProjectionSpeed()
 	{
-		return 28 + 28 * this.getModuleCount(ModularForceFieldSystem.itemModuleSpeed, this.getModuleSlots());
+		return 28 + 28 * this.getModuleCount(ModularForceFieldSystem.itemModuleSpeed, SLOTS_MODULE);
 	}
 
 	@Override
@@ -374,10 +760,34 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 
 	@Override
 	public Set<Vector3> getCalculatedField()
+	{
+		return this.calculatedField.asVectorSet();
+	}
+
+	@Override
+	public ChunkPositionSet getCalculatedPositions()
 	{
 		return this.calculatedField;
 	}
 
+	@Override
+	public FieldOccupancy getOccupancy()
+	{
+		if (this.occupancy == null)
+		{
+			this.occupancy = FieldOccupancy.create(this);
+		}
+
+		return this.occupancy;
+	}
+
+	@Override
+	public void clearCache()
+	{
+		super.clearCache();
+		this.occupancy = null;
+	}
+
 	@Override
 	public int getSidedModuleCount(IModule module, ForgeDirection... direction)
 	{
@@ -387,7 +797,7 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 		{
 			for (ForgeDirection checkDir : direction)
 			{
-				count += this.getModuleCount(module, this.getSlotsBasedOnDirection(checkDir));
+				count += this.getModuleCount(module, this.getSlotGroup(checkDir));
 			}
 		}
 		else
@@ -395,7 +805,7 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 			for (int i = 0; i < 6; i++)
 			{
 				ForgeDirection checkDir = ForgeDirection.getOrientation(i);
-				count += this.getModuleCount(module, this.getSlotsBasedOnDirection(checkDir));
+				count += this.getModuleCount(module, this.getSlotGroup(checkDir));
 			}
 		}
 
@@ -404,30 +814,42 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 
 	@Override
 	public int[] getSlotsBasedOnDirection(ForgeDirection direction)
+	{
+		return this.getSlotGroup(direction).toArray();
+	}
+
+	@Override
+	public ModuleSlotGroup getSlotGroup(ForgeDirection direction)
 	{
 		switch (direction)
 		{
 			default:
-				return new int[] {};
+				return SLOTS_NONE;
 			case UP:
-				return new int[] { 3, 11 };
+				return SLOTS_UP;
 			case DOWN:
-				return new int[] { 6, 14 };
+				return SLOTS_DOWN;
 			case NORTH:
-				return new int[] { 8, 10 };
+				return SLOTS_NORTH;
 			case SOUTH:
-				return new int[] { 7, 9 };
+				return SLOTS_SOUTH;
 			case WEST:
-				return new int[] { 12, 13 };
+				return SLOTS_WEST;
 			case EAST:
-				return new int[] { 4, 5 };
+				return SLOTS_EAST;
 		}
 	}
 
 	@Override
 	public int[] getModuleSlots()
 	{
-		return new int[] { 15, 16, 17, 18, 19, 20 };
+		return SLOTS_MODULE.toArray();
+	}
+
+	@Override
+	public ModuleSlotGroup getModuleSlotGroup()
+	{
+		return SLOTS_MODULE;
 	}
 
 	@Override
@@ -489,14 +911,14 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 
 		ForgeDirection direction = this.getDirection(this.worldObj, this.xCoord, this.yCoord, this.zCoord);
 
-		int zTranslationNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.NORTH)));
-		int zTranslationPos = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.SOUTH)));
+		int zTranslationNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.NORTH)));
+		int zTranslationPos = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.SOUTH)));
 
-		int xTranslationNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.WEST)));
-		int xTranslationPos = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.EAST)));
+		int xTranslationNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.WEST)));
+		int xTranslationPos = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.EAST)));
 
-		int yTranslationPos = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotsBasedOnDirection(ForgeDirection.UP));
-		int yTranslationNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotsBasedOnDirection(ForgeDirection.DOWN));
+		int yTranslationPos = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotGroup(ForgeDirection.UP));
+		int yTranslationNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleTranslate, this.getSlotGroup(ForgeDirection.DOWN));
 
 		Vector3 translation = new Vector3(xTranslationPos - xTranslationNeg, yTranslationPos - yTranslationNeg, zTranslationPos - zTranslationNeg);
 
@@ -526,11 +948,11 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 
 		ForgeDirection direction = this.getDirection(this.worldObj, this.xCoord, this.yCoord, this.zCoord);
 
-		int zScalePos = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.SOUTH)));
-		int xScalePos = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.EAST)));
-		int yScalePos = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotsBasedOnDirection(ForgeDirection.UP));
+		int zScalePos = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.SOUTH)));
+		int xScalePos = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.EAST)));
+		int yScalePos = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotGroup(ForgeDirection.UP));
 
-		int omnidirectionalScale = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getModuleSlots());
+		int omnidirectionalScale = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, SLOTS_MODULE);
 
 		zScalePos += omnidirectionalScale;
 		xScalePos += omnidirectionalScale;
@@ -564,11 +986,11 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 
 		ForgeDirection direction = this.getDirection(this.worldObj, this.xCoord, this.yCoord, this.zCoord);
 
-		int zScaleNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.NORTH)));
-		int xScaleNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.WEST)));
-		int yScaleNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotsBasedOnDirection(ForgeDirection.DOWN));
+		int zScaleNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.NORTH)));
+		int xScaleNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.WEST)));
+		int yScaleNeg = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getSlotGroup(ForgeDirection.DOWN));
 
-		int omnidirectionalScale = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, this.getModuleSlots());
+		int omnidirectionalScale = this.getModuleCount(ModularForceFieldSystem.itemModuleScale, SLOTS_MODULE);
 
 		zScaleNeg += omnidirectionalScale;
 		xScaleNeg += omnidirectionalScale;
@@ -601,7 +1023,7 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 		}
 
 		ForgeDirection direction = this.getDirection(this.worldObj, this.xCoord, this.yCoord, this.zCoord);
-		int horizontalRotation = this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.EAST))) - this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.WEST))) + this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.SOUTH))) - this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotsBasedOnDirection(VectorHelper.getOrientationFromSide(direction, ForgeDirection.NORTH)));
+		int horizontalRotation = this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.EAST))) - this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.WEST))) + this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.SOUTH))) - this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotGroup(VectorHelper.getOrientationFromSide(direction, ForgeDirection.NORTH)));
 
 		if (Settings.USE_CACHE)
 		{
@@ -627,7 +1049,7 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 			}
 		}
 
-		int verticleRotation = this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotsBasedOnDirection(ForgeDirection.UP)) - this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotsBasedOnDirection(ForgeDirection.DOWN));
+		int verticleRotation = this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotGroup(ForgeDirection.UP)) - this.getModuleCount(ModularForceFieldSystem.itemModuleRotate, this.getSlotGroup(ForgeDirection.DOWN));
 
 		if (Settings.USE_CACHE)
 		{
@@ -655,19 +1077,17 @@ public class TileEntityForceFieldProjector extends TileEntityModuleAcceptor impl
 
 		Set<Vector3> newField = this.getMode().getInteriorPoints(this);
 
-		Vector3 translation = this.getTranslation();
-		int rotationYaw = this.getRotationYaw();
-		int rotationPitch = this.getRotationPitch();
+		Vector3 offset = new Vector3(this).add(this.getTranslation());
+		RotationTransform rotation = RotationTransform.get(this);
 
 		for (Vector3 position : newField)
 		{
-			if (rotationYaw != 0 || rotationPitch != 0)
+			if (!rotation.isIdentity())
 			{
-				CalculationHelper.rotateByAngle(position, rotationYaw, rotationPitch);
+				rotation.transform(position);
 			}
 
-			position.add(new Vector3(this));
-			position.add(translation);
+			position.add(offset);
 		}
 
 		if (Settings.USE_CACHE)
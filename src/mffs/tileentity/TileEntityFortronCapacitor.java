@@ -31,6 +31,11 @@ public class TileEntityFortronCapacitor extends TileEntityModuleAcceptor impleme
 {
 	private TransferMode transferMode = TransferMode.EQUALIZE;
 
+	/**
+	 * True if a link card makes this capacitor transfer to a single machine.
+	 */
+	private boolean isLinked = false;
+
 	public TileEntityFortronCapacitor()
 	{
 		this.fortronTank.setCapacity(500 * LiquidContainerRegistry.BUCKET_VOLUME);
@@ -52,41 +57,56 @@ public class TileEntityFortronCapacitor extends TileEntityModuleAcceptor impleme
 			/**
 			 * Gets the card.
 			 */
-			if (this.isActive() && this.ticks % 10 == 0)
+			if (this.isActive())
 			{
-				Set<IFortronFrequency> machines = new HashSet<IFortronFrequency>();
-
-				for (ItemStack itemStack : this.getCards())
+				if (this.ticks % 10 == 0)
 				{
-					if (itemStack != null)
+					Set<IFortronFrequency> machines = new HashSet<IFortronFrequency>();
+
+					for (ItemStack itemStack : this.getCards())
 					{
-						if (itemStack.getItem() instanceof ICardInfinite)
+						if (itemStack != null)
 						{
-							this.setFortronEnergy(this.getFortronCapacity());
-						}
-						else if (itemStack.getItem() instanceof ICardLink)
-						{
-							Vector3 linkPosition = ((ICardLink) itemStack.getItem()).getLink(itemStack);
-
-							if (linkPosition != null && linkPosition.getTileEntity(this.worldObj) instanceof IFortronFrequency)
+							if (itemStack.getItem() instanceof ICardInfinite)
 							{
-								machines.add(this);
-								machines.add((IFortronFrequency) linkPosition.getTileEntity(this.worldObj));
+								this.setFortronEnergy(this.getFortronCapacity());
+							}
+							else if (itemStack.getItem() instanceof ICardLink)
+							{
+								Vector3 linkPosition = ((ICardLink) itemStack.getItem()).getLink(itemStack);
+
+								if (linkPosition != null && linkPosition.getTileEntity(this.worldObj) instanceof IFortronFrequency)
+								{
+									machines.add(this);
+									machines.add((IFortronFrequency) linkPosition.getTileEntity(this.worldObj));
+								}
 							}
 						}
 					}
-				}
 
-				if (machines.size() < 1)
-				{
-					machines = this.getLinkedDevices();
-				}
+					/**
+					 * Linked capacitors transfer on their own, all others are balanced each tick
+					 * by the Fortron network of their frequency.
+					 */
+					this.isLinked = machines.size() > 0;
 
-				MFFSHelper.transferFortron(this, machines, transferMode, this.getTransmissionRate());
+					if (this.isLinked)
+					{
+						MFFSHelper.transferFortron(this, machines, transferMode, this.getTransmissionRate());
+					}
+				}
 			}
 		}
 	}
 
+	/**
+	 * @return True if this capacitor should be balanced by the Fortron network of its frequency.
+	 */
+	public boolean isTransmittingToNetwork()
+	{
+		return this.isActive() && !this.isDisabled() && !this.isLinked;
+	}
+
 	@Override
 	public float getAmplifier()
 	{
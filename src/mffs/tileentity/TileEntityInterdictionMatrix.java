@@ -37,6 +37,12 @@ public class TileEntityInterdictionMatrix extends TileEntityModuleAcceptor imple
 	 */
 	private boolean isBanMode = true;
 
+	/**
+	 * The action range last published to the bounds index, or -1 if the matrix is not listed.
+	 */
+	private int publishedRange = -1;
+	private boolean publishedAntiSpawn = false;
+
 	public TileEntityInterdictionMatrix()
 	{
 		this.fortronTank.setCapacity(20 * LiquidContainerRegistry.BUCKET_VOLUME);
@@ -49,6 +55,29 @@ public class TileEntityInterdictionMatrix extends TileEntityModuleAcceptor imple
 	{
 		super.updateEntity();
 
+		/**
+		 * Only active matrices are listed, so the coverage changes when the matrix turns on or off
+		 * as well as when its range changes. Both sides publish, so the client can check
+		 * permissions before sending an interaction.
+		 */
+		int actionRange = this.isActive() ? this.getActionRange() : -1;
+		boolean antiSpawn = actionRange >= 0 && this.getModuleCount(ModularForceFieldSystem.itemModuleAntiSpawn) > 0;
+
+		if (actionRange != this.publishedRange || antiSpawn != this.publishedAntiSpawn)
+		{
+			if (actionRange >= 0)
+			{
+				FieldBoundsIndex.get(this.worldObj).putInterdictionMatrix(this, this.xCoord, this.yCoord, this.zCoord, actionRange, antiSpawn);
+			}
+			else
+			{
+				FieldBoundsIndex.get(this.worldObj).removeInterdictionMatrix(this);
+			}
+
+			this.publishedRange = actionRange;
+			this.publishedAntiSpawn = antiSpawn;
+		}
+
 		if (!this.worldObj.isRemote)
 		{
 			if (this.isActive() || (this.getStackInSlot(0) != null && this.getStackInSlot(0).itemID == ModularForceFieldSystem.itemCardInfinite.itemID))
@@ -65,6 +94,28 @@ public class TileEntityInterdictionMatrix extends TileEntityModuleAcceptor imple
 		}
 	}
 
+	@Override
+	public void invalidate()
+	{
+		if (this.worldObj != null)
+		{
+			FieldBoundsIndex.get(this.worldObj).removeInterdictionMatrix(this);
+		}
+
+		this.publishedRange = -1;
+		this.publishedAntiSpawn = false;
+		super.invalidate();
+	}
+
+	@Override
+	public void onChunkUnload()
+	{
+		FieldBoundsIndex.get(this.worldObj).removeInterdictionMatrix(this);
+		this.publishedRange = -1;
+		this.publishedAntiSpawn = false;
+		super.onChunkUnload();
+	}
+
 	@Override
 	public float getAmplifier()
 	{